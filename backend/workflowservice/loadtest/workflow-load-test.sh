@@ -0,0 +1,91 @@
+#!/bin/bash
+
+# T-Rex Workflow Service load test: platform threads vs virtual threads
+#
+# Drives the JDBC-bound endpoints (facet queries, filtered search, workflow
+# session reads and writes, contact-request inserts) against a running service and prints
+# requests/sec and latency percentiles per endpoint. Run it once against each
+# mode with the same connection pool size; see README.md in this directory.
+#
+# Usage: ./workflow-load-test.sh [label]
+#   BASE_URL     service URL (default http://localhost:8080)
+#   CONCURRENCY  concurrent clients (default 200)
+#   DURATION     duration per endpoint (default 60s)
+#   VEHICLE_ID   vehicle id used for contact requests (default 1)
+
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-60s}
+VEHICLE_ID=${VEHICLE_ID:-1}
+LABEL=${1:-run}
+RESULTS_DIR="$(dirname "$0")/results/$LABEL-$(date +%Y%m%d-%H%M%S)"
+
+if ! command -v hey >/dev/null 2>&1; then
+    echo "❌ hey is required (https://github.com/rakyll/hey): go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+if ! curl -sf "$BASE_URL/actuator/health" >/dev/null; then
+    echo "❌ Workflow service is not responding at $BASE_URL"
+    exit 1
+fi
+
+mkdir -p "$RESULTS_DIR"
+
+echo "🚀 Load test '$LABEL' against $BASE_URL"
+echo "   concurrency $CONCURRENCY, $DURATION per endpoint"
+echo "   results in $RESULTS_DIR"
+echo ""
+
+# Run one endpoint and print its summary line
+run() {
+    local name=$1
+    shift
+    hey -z "$DURATION" -c "$CONCURRENCY" "$@" > "$RESULTS_DIR/$name.txt"
+    local rps p50 p99 errors
+    rps=$(awk '/Requests\/sec/ {print $2}' "$RESULTS_DIR/$name.txt")
+    p50=$(awk '/50% in/ {print $3}' "$RESULTS_DIR/$name.txt")
+    p99=$(awk '/99% in/ {print $3}' "$RESULTS_DIR/$name.txt")
+    errors=$(awk '/^  \[[45][0-9][0-9]\]/ {sum += $2} END {print sum + 0}' "$RESULTS_DIR/$name.txt")
+    printf "%-22s %10s req/s   p50 %8ss   p99 %8ss   4xx/5xx %s\n" "$name" "$rps" "$p50" "$p99" "$errors"
+}
+
+# Warm up caches and the JIT so both runs start from the same state
+hey -z 15s -c 20 "$BASE_URL/api/vehicles/filters" >/dev/null
+hey -z 15s -c 20 "$BASE_URL/api/vehicles/search?make=Toyota" >/dev/null
+
+echo "📊 Results:"
+echo "-----------"
+
+# The ten facet queries behind the search filters
+run facets "$BASE_URL/api/vehicles/filters"
+run filter-counts "$BASE_URL/api/vehicles/filter-counts?make=Toyota"
+run search "$BASE_URL/api/vehicles/search?make=Toyota&page=0&size=20"
+
+# Workflow load/save: a page of stored sessions, and a token-mode session being
+# stored (the first save inserts it, later ones look it up)
+run workflow-sessions "$BASE_URL/api/workflow/sessions?workflowType=buying&status=IN_PROGRESS&size=20"
+
+TOKEN=$(curl -sf -X POST -H 'Content-Type: application/json' -d '{"workflowType":"buying"}' \
+    "$BASE_URL/api/workflow/token/start" | grep -o '"token":"[^"]*"' | cut -d'"' -f4)
+run workflow-save -m POST -T application/json \
+    -d '{"token":"'"$TOKEN"'"}' \
+    "$BASE_URL/api/workflow/token/save"
+
+run contact-request -m POST -T application/json \
+    -d '{"fullName":"Load Test","email":"loadtest@example.com","phone":"0820000000","province":"Gauteng","city":"Johannesburg","preferredContactMethod":"email","vehicleIds":['"$VEHICLE_ID"']}' \
+    "$BASE_URL/api/contact-requests"
+
+echo ""
+echo "📈 Server side (threads, pool, pinning):"
+echo "----------------------------------------"
+for metric in jvm.threads.live hikaricp.connections.active hikaricp.connections.pending virtual.threads.pinned; do
+    value=$(curl -sf "$BASE_URL/actuator/metrics/$metric" \
+        | grep -o '"statistic":"[A-Z_]*","value":[0-9.E+-]*' | head -3 | tr '\n' ' ' || true)
+    printf "%-32s %s\n" "$metric" "${value:-n/a}"
+done
+
+echo ""
+echo "✅ Done. Raw hey output is in $RESULTS_DIR"
@@ -0,0 +1,191 @@
+package com.trex.workflowservice.cache;
+
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Cross-instance cache invalidation over Postgres LISTEN/NOTIFY.
+ *
+ * {@link #publish} raises an {@link InventoryChangedEvent} locally and sends a NOTIFY
+ * on the inventory channel; NOTIFY is transactional, so other nodes only hear about
+ * committed changes. Every node keeps one dedicated connection LISTENing on the
+ * channel and re-publishes what it receives as a remote event, which the caches
+ * consume. After a lost connection we cannot know what was missed, so a bulk event
+ * is raised on reconnect and every cache starts over.
+ */
+@Component
+public class InventoryChangeBus implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryChangeBus.class);
+
+    private static final int POLL_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private final boolean enabled;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public InventoryChangeBus(
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            DataSourceProperties dataSourceProperties,
+            @Value("${vehicles.cache.invalidation.channel:inventory_changes}") String channel,
+            @Value("${vehicles.cache.invalidation.enabled:true}") boolean enabled) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Announces a local inventory change to this node and, once the surrounding
+     * transaction (if any) commits, to every other node.
+     */
+    public void publish(InventoryChangedEvent event) {
+        if (enabled) {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, channel, encode(event));
+            } catch (RuntimeException e) {
+                // Other nodes fall back to TTL expiry; the local write must not fail over this
+                logger.warn("Failed to send inventory change notification: {}", e.getMessage());
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Inventory invalidation bus disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "inventory-change-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                logger.info("Listening for inventory changes on channel '{}' as node {}", channel, nodeId);
+
+                if (reconnecting) {
+                    eventPublisher.publishEvent(new InventoryChangedEvent(InventoryChangedEvent.Kind.BULK, null, null, null, true));
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handleNotification(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Inventory change listener lost its connection, retrying in {} ms: {}",
+                           RECONNECT_DELAY_MS, e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleNotification(String payload) {
+        // The previous make is only sent when it differs
+        String[] parts = payload.split("\\|", 5);
+        if (parts.length != 4 && parts.length != 5) {
+            logger.warn("Ignoring malformed inventory notification: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return; // Already applied locally
+        }
+        try {
+            InventoryChangedEvent.Kind kind = InventoryChangedEvent.Kind.valueOf(parts[1]);
+            Long vehicleId = parts[2].isEmpty() ? null : Long.valueOf(parts[2]);
+            String make = parts[3].isEmpty() ? null : parts[3];
+            String previousMake = parts.length == 5 && !parts[4].isEmpty() ? parts[4] : null;
+            eventPublisher.publishEvent(new InventoryChangedEvent(kind, vehicleId, make, previousMake, true));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed inventory notification: {}", payload);
+        }
+    }
+
+    // nodeId|kind|vehicleId|make, plus |previousMake when an update changed the make
+    private String encode(InventoryChangedEvent event) {
+        return nodeId + '|' + event.kind() + '|'
+            + (event.vehicleId() != null ? event.vehicleId() : "") + '|'
+            + (event.make() != null ? event.make() : "")
+            + (event.previousMake() != null ? "|" + event.previousMake() : "");
+    }
+}
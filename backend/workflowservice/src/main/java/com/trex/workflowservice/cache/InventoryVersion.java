@@ -0,0 +1,32 @@
+package com.trex.workflowservice.cache;
+
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped on every local or remote inventory change. Caches of
+ * derived data (facets, filter lists, result pages) can stamp entries with it and
+ * treat any entry from an older version as stale. The counter is bumped before any
+ * other listener runs, so a cache that invalidates on the same event never sees the
+ * old version afterwards.
+ */
+@Component
+public class InventoryVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,80 @@
+package com.trex.workflowservice.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A UTF-8 string held in a {@link VehicleTextStore} chunk.
+ *
+ * It serializes to a JSON string without being decoded into a java.lang.String: the
+ * bytes are copied into a per-thread scratch array and handed to Jackson as UTF-8,
+ * which escapes them straight into its output buffer. (Jackson cannot read from a
+ * direct buffer, so that one bounded copy is the floor.) HTTP responses always use a
+ * byte-based generator; character-based ones fall back to decoding.
+ */
+@JsonSerialize(using = OffHeapText.Serializer.class)
+public final class OffHeapText {
+
+    // Scratch arrays above this size are not kept between calls
+    private static final int MAX_RETAINED_SCRATCH = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[8 * 1024]);
+
+    private final ByteBuffer chunk;
+    private final int offset;
+    private final int length;
+
+    OffHeapText(ByteBuffer chunk, int offset, int length) {
+        this.chunk = chunk;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int byteLength() {
+        return length;
+    }
+
+    void writeTo(JsonGenerator generator) throws IOException {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[length];
+            if (length <= MAX_RETAINED_SCRATCH) {
+                SCRATCH.set(scratch);
+            }
+        }
+        chunk.get(offset, scratch, 0, length);
+        try {
+            generator.writeUTF8String(scratch, 0, length);
+        } catch (UnsupportedOperationException e) {
+            // Character-based generators (e.g. writeValueAsString) only take decoded text
+            generator.writeString(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        chunk.get(offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Serializer extends StdSerializer<OffHeapText> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(OffHeapText.class);
+        }
+
+        @Override
+        public void serialize(OffHeapText value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            value.writeTo(generator);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.trex.workflowservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Vehicles and make slices changed within the last replica lag window (the maximum lag
+ * a replica may have while in rotation, plus the interval between lag checks).
+ *
+ * A cache reloading such an entry reads it from the primary: a replica may not have
+ * replayed the change yet, and the old row would then be cached until its TTL. Changes
+ * are recorded before any cache listener invalidates on the same event.
+ */
+@Component
+public class RecentInventoryChanges {
+
+    private final long windowNanos;
+    private final Cache<Long, Boolean> vehicles;
+    private final Cache<String, Boolean> slices;
+    // Bulk changes and changes of an unknown make touch every slice
+    private volatile long allChangedUntil;
+    private volatile long anyChangedUntil;
+
+    public RecentInventoryChanges(
+            @Value("${vehicles.datasource.replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${vehicles.datasource.replicas.check-interval-ms:5000}") long checkIntervalMs) {
+        Duration window = maxLag.plusMillis(checkIntervalMs);
+        this.windowNanos = window.toNanos();
+        this.vehicles = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(100_000).build();
+        this.slices = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(10_000).build();
+    }
+
+    public boolean vehicleChanged(Long vehicleId) {
+        return System.nanoTime() - allChangedUntil < 0 || vehicles.getIfPresent(vehicleId) != null;
+    }
+
+    /**
+     * Whether pages filtered on the make, or on no make when it is null, may be stale
+     * on a replica.
+     */
+    public boolean sliceChanged(String make) {
+        long now = System.nanoTime();
+        if (now - allChangedUntil < 0) {
+            return true;
+        }
+        if (make == null || make.isBlank()) {
+            return now - anyChangedUntil < 0;
+        }
+        return slices.getIfPresent(slice(make)) != null;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        long until = System.nanoTime() + windowNanos;
+        anyChangedUntil = until;
+        if (event.isBulk() || event.make() == null) {
+            allChangedUntil = until;
+        } else {
+            slices.put(slice(event.make()), Boolean.TRUE);
+            if (event.previousMake() != null) {
+                slices.put(slice(event.previousMake()), Boolean.TRUE);
+            }
+        }
+        if (event.vehicleId() != null) {
+            vehicles.put(event.vehicleId(), Boolean.TRUE);
+        }
+    }
+
+    private static String slice(String make) {
+        return make.trim().toLowerCase(Locale.ROOT);
+    }
+}
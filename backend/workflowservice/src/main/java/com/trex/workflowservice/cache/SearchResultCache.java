@@ -0,0 +1,200 @@
+package com.trex.workflowservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.trex.workflowservice.config.ReplicaRoutingDataSource;
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import com.trex.workflowservice.model.Vehicle;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of search result pages, keyed by the normalized filters, sort and page.
+ *
+ * Caffeine's W-TinyLFU policy only admits a new page if it is requested more often
+ * than the entry it would displace, so one-off deep-page requests do not push out the
+ * hot first pages. The cache is bounded by estimated heap rather than entry count.
+ *
+ * Each entry belongs to an inventory slice: the make it filters on, or the whole
+ * inventory when it has no make filter. Its TTL follows how often that slice has been
+ * changing recently (half the smoothed interval between changes, within the configured
+ * bounds), and a change evicts the entries of its slice and of the whole inventory.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private static final String ALL = "*";
+
+    // Fixed cost of a cached page: key parts, PageImpl, pageable and content list
+    private static final int BASE_PAGE_BYTES = 512;
+
+    // Smoothing factor for the moving average of intervals between slice changes
+    private static final double ALPHA = 0.3;
+
+    private final Cache<VehicleQueryKey, Entry> cache;
+    private final Map<String, SliceActivity> activity = new ConcurrentHashMap<>();
+    private final InventoryVersion inventoryVersion;
+    private final RecentInventoryChanges recentChanges;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+
+    public SearchResultCache(
+            MeterRegistry meterRegistry,
+            InventoryVersion inventoryVersion,
+            RecentInventoryChanges recentChanges,
+            @Value("${vehicles.cache.search.max-weight-mb:32}") long maxWeightMb,
+            @Value("${vehicles.cache.search.min-ttl:PT15S}") Duration minTtl,
+            @Value("${vehicles.cache.search.max-ttl:PT10M}") Duration maxTtl) {
+        this.inventoryVersion = inventoryVersion;
+        this.recentChanges = recentChanges;
+        this.minTtlNanos = minTtl.toNanos();
+        this.maxTtlNanos = Math.max(minTtlNanos, maxTtl.toNanos());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightMb * 1024 * 1024)
+                .weigher((VehicleQueryKey key, Entry entry) -> estimateBytes(entry.page()))
+                .expireAfter(new AdaptiveExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vehicleSearchPages");
+        logger.info("Search result cache: {} MB, ttl {} - {}", maxWeightMb, minTtl, maxTtl);
+    }
+
+    /**
+     * Returns the cached page for the key, or loads and caches it.
+     *
+     * @param make the make filter of the query, which selects its inventory slice
+     */
+    public Page<Vehicle> get(VehicleQueryKey key, String make, Supplier<Page<Vehicle>> loader) {
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.page();
+        }
+
+        long version = inventoryVersion.current();
+        // A slice that just changed is reloaded from the primary, not a replica that may lag
+        Page<Vehicle> page = recentChanges.sliceChanged(make)
+            ? ReplicaRoutingDataSource.readFromPrimary(loader)
+            : loader.get();
+        // A change while loading may already be reflected in the page or not; don't keep it.
+        // Checked again after the put: a change between the first check and the put has
+        // bumped the version but may have run its eviction before the entry was there.
+        // A later change bumps the version before evicting, so it removes the entry itself.
+        if (inventoryVersion.current() == version) {
+            Entry entry = new Entry(slice(make), page);
+            cache.put(key, entry);
+            if (inventoryVersion.current() != version) {
+                cache.asMap().remove(key, entry);
+            }
+        }
+        return page;
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.isBulk() || event.make() == null) {
+            // Without a make we cannot tell which slice changed
+            recordChange(ALL);
+            cache.invalidateAll();
+            return;
+        }
+        String slice = slice(event.make());
+        // A vehicle whose make changed also leaves the old make's listings
+        String previousSlice = event.previousMake() != null ? slice(event.previousMake()) : slice;
+        recordChange(slice);
+        recordChange(previousSlice);
+        recordChange(ALL);
+        cache.asMap().values().removeIf(entry -> entry.slice().equals(slice)
+            || entry.slice().equals(previousSlice) || entry.slice().equals(ALL));
+    }
+
+    private void recordChange(String slice) {
+        activity.computeIfAbsent(slice, s -> new SliceActivity()).recordChange(System.nanoTime());
+    }
+
+    private long ttlNanos(String slice) {
+        SliceActivity sliceActivity = activity.get(slice);
+        if (sliceActivity == null) {
+            return maxTtlNanos;
+        }
+        return Math.max(minTtlNanos, Math.min(maxTtlNanos, sliceActivity.averageIntervalNanos() / 2));
+    }
+
+    private static String slice(String make) {
+        return make == null || make.isBlank() ? ALL : make.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Estimated retained heap of a page: fixed overhead plus its vehicles.
+     */
+    static int estimateBytes(Page<Vehicle> page) {
+        long bytes = BASE_PAGE_BYTES;
+        for (Vehicle vehicle : page.getContent()) {
+            bytes += VehicleDetailCache.estimateBytes(vehicle);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private record Entry(String slice, Page<Vehicle> page) {
+    }
+
+    /**
+     * Smoothed interval between changes to one inventory slice.
+     */
+    private final class SliceActivity {
+        private long lastChangeNanos;
+        private double averageIntervalNanos;
+
+        SliceActivity() {
+            this.lastChangeNanos = System.nanoTime();
+            this.averageIntervalNanos = maxTtlNanos * 2.0;
+        }
+
+        synchronized void recordChange(long now) {
+            long interval = now - lastChangeNanos;
+            lastChangeNanos = now;
+            averageIntervalNanos = ALPHA * interval + (1 - ALPHA) * averageIntervalNanos;
+        }
+
+        synchronized long averageIntervalNanos() {
+            // A slice that has gone quiet drifts back towards the longest TTL
+            long sinceLast = System.nanoTime() - lastChangeNanos;
+            return (long) Math.max(averageIntervalNanos, sinceLast);
+        }
+    }
+
+    /**
+     * Fixes each entry's lifetime when it is written; reads do not extend it.
+     */
+    private final class AdaptiveExpiry implements Expiry<VehicleQueryKey, Entry> {
+
+        @Override
+        public long expireAfterCreate(VehicleQueryKey key, Entry entry, long currentTime) {
+            return ttlNanos(entry.slice());
+        }
+
+        @Override
+        public long expireAfterUpdate(VehicleQueryKey key, Entry entry, long currentTime, long currentDuration) {
+            return ttlNanos(entry.slice());
+        }
+
+        @Override
+        public long expireAfterRead(VehicleQueryKey key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
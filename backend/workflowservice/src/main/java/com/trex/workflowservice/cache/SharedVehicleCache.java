@@ -0,0 +1,19 @@
+package com.trex.workflowservice.cache;
+
+import com.trex.workflowservice.model.Vehicle;
+
+import java.util.Optional;
+
+/**
+ * Optional second cache tier shared between service instances (e.g. Redis).
+ * When a bean of this type is present, {@link VehicleDetailCache} consults it on a
+ * local miss and keeps it in step on writes; without one the cache is local only.
+ */
+public interface SharedVehicleCache {
+
+    Optional<Vehicle> get(Long id);
+
+    void put(Vehicle vehicle);
+
+    void evict(Long id);
+}
@@ -0,0 +1,74 @@
+package com.trex.workflowservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical computations into one.
+ *
+ * The first caller for a key runs the computation on its own thread; callers that
+ * arrive with the same key while it is in flight wait for and share its result (or
+ * its exception). Nothing is cached: once the computation finishes the key is free
+ * and the next caller computes afresh.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String operation, MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("vehicles.singleflight.requests")
+                .description("Requests that ran their own computation or joined an identical in-flight one")
+                .tag("operation", operation)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("vehicles.singleflight.requests")
+                .description("Requests that ran their own computation or joined an identical in-flight one")
+                .tag("operation", operation)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V result = computation.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
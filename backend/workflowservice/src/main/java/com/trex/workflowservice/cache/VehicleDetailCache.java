@@ -0,0 +1,213 @@
+package com.trex.workflowservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.trex.workflowservice.config.ReplicaRoutingDataSource;
+import com.trex.workflowservice.dto.VehicleDetail;
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import com.trex.workflowservice.model.Vehicle;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for vehicle detail lookups.
+ *
+ * The local tier is a Caffeine cache bounded by an estimate of retained heap, since a
+ * handful of vehicles with long dealer copy in extras/comments weigh as much as
+ * hundreds of plain ones. Those two fields are moved into the off-heap
+ * {@link VehicleTextStore} on the way in, so cached entries are detached copies
+ * without them. A {@link SharedVehicleCache} bean, if present, sits behind the local
+ * tier. Entries are evicted from inventory change events, local or from other nodes.
+ */
+@Component
+public class VehicleDetailCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleDetailCache.class);
+
+    // Rough fixed cost of a Vehicle instance with its boxed numbers and dates
+    private static final int BASE_VEHICLE_BYTES = 640;
+
+    private final Cache<Long, Entry> localCache;
+    private final SharedVehicleCache sharedCache;
+    private final VehicleTextStore textStore;
+    private final InventoryVersion inventoryVersion;
+    private final RecentInventoryChanges recentChanges;
+
+    public VehicleDetailCache(
+            MeterRegistry meterRegistry,
+            ObjectProvider<SharedVehicleCache> sharedCache,
+            VehicleTextStore textStore,
+            InventoryVersion inventoryVersion,
+            RecentInventoryChanges recentChanges,
+            @Value("${vehicles.cache.detail.max-weight-mb:64}") long maxWeightMb,
+            @Value("${vehicles.cache.detail.max-entries:20000}") long maxEntries,
+            @Value("${vehicles.cache.detail.ttl:PT10M}") Duration ttl) {
+        this.textStore = textStore;
+        this.inventoryVersion = inventoryVersion;
+        this.recentChanges = recentChanges;
+        // Caffeine bounds by either size or weight, so the entry cap is folded into the
+        // weigher: no entry weighs less than its share of the budget
+        long maxWeightBytes = maxWeightMb * 1024 * 1024;
+        int minEntryWeight = (int) Math.min(Integer.MAX_VALUE, maxWeightBytes / Math.max(1, maxEntries));
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((Long id, Entry entry) -> Math.max(estimateBytes(entry.vehicle()), minEntryWeight))
+                .expireAfterWrite(ttl)
+                .removalListener((Long id, Entry entry, RemovalCause cause) -> {
+                    if (id != null && entry != null && entry.textSequence() != 0) {
+                        textStore.release(id, entry.textSequence());
+                    }
+                })
+                .recordStats()
+                .build();
+        this.sharedCache = sharedCache.getIfAvailable();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "vehicleDetails");
+        logger.info("Vehicle detail cache: {} MB / {} entries, ttl {}, shared tier: {}",
+                   maxWeightMb, maxEntries, ttl, this.sharedCache != null);
+    }
+
+    /**
+     * Returns a full, caller-owned copy of the vehicle, with extras and comments.
+     */
+    public Optional<Vehicle> get(Long id, Function<Long, Optional<Vehicle>> loader) {
+        return getDetail(id, loader).map(detail -> {
+            Vehicle vehicle = copyOf(detail.getVehicle(), false);
+            if (detail.getExtras() != null) {
+                vehicle.setExtras(detail.getExtras().toString());
+            }
+            if (detail.getComments() != null) {
+                vehicle.setComments(detail.getComments().toString());
+            }
+            return vehicle;
+        });
+    }
+
+    /**
+     * Returns the vehicle from the local tier, then the shared tier, then the loader.
+     * The vehicle inside the detail is shared and must not be modified.
+     */
+    public Optional<VehicleDetail> getDetail(Long id, Function<Long, Optional<Vehicle>> loader) {
+        Entry cached = localCache.getIfPresent(id);
+        if (cached != null) {
+            VehicleDetail detail = toDetail(id, cached);
+            if (detail != null) {
+                return Optional.of(detail);
+            }
+        }
+
+        long version = inventoryVersion.current();
+        Optional<Vehicle> vehicle = sharedCache != null ? sharedCache.get(id) : Optional.empty();
+        boolean loaded = false;
+        if (vehicle.isEmpty()) {
+            // A vehicle that just changed is reloaded from the primary, not a replica that may lag
+            vehicle = recentChanges.vehicleChanged(id)
+                ? ReplicaRoutingDataSource.readFromPrimary(() -> loader.apply(id))
+                : loader.apply(id);
+            loaded = true;
+        }
+        if (vehicle.isEmpty()) {
+            return Optional.empty();
+        }
+        // A change while loading may already be reflected in the vehicle or not; don't keep it
+        if (inventoryVersion.current() != version) {
+            return Optional.of(new VehicleDetail(vehicle.get(), null, null));
+        }
+        if (loaded && sharedCache != null) {
+            sharedCache.put(vehicle.get());
+        }
+
+        Entry entry = toEntry(id, vehicle.get());
+        localCache.put(id, entry);
+        VehicleDetail detail = toDetail(id, entry);
+        // Already released again by a concurrent invalidation; serve what was loaded
+        return Optional.of(detail != null ? detail : new VehicleDetail(vehicle.get(), null, null));
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.isBulk()) {
+            localCache.invalidateAll();
+            return;
+        }
+        if (event.vehicleId() == null) {
+            return;
+        }
+        localCache.invalidate(event.vehicleId());
+        // The writing node owns the shared tier; other nodes only drop their local copy
+        if (sharedCache != null && !event.remote()) {
+            sharedCache.evict(event.vehicleId());
+        }
+    }
+
+    /**
+     * Detaches the vehicle and moves its text off-heap. If the text store is full the
+     * text stays on the heap copy.
+     */
+    private Entry toEntry(Long id, Vehicle vehicle) {
+        if (vehicle.getExtras() == null && vehicle.getComments() == null) {
+            return new Entry(copyOf(vehicle, false), 0);
+        }
+        long sequence = textStore.put(id, vehicle.getExtras(), vehicle.getComments());
+        return new Entry(copyOf(vehicle, sequence != 0), sequence);
+    }
+
+    private VehicleDetail toDetail(Long id, Entry entry) {
+        if (entry.textSequence() == 0) {
+            return new VehicleDetail(entry.vehicle(), null, null);
+        }
+        VehicleTextStore.Slot slot = textStore.get(id, entry.textSequence());
+        if (slot == null) {
+            return null; // Released by a concurrent invalidation; reload
+        }
+        return new VehicleDetail(entry.vehicle(), slot.extras(), slot.comments());
+    }
+
+    private static Vehicle copyOf(Vehicle vehicle, boolean withoutText) {
+        Vehicle copy = new Vehicle();
+        if (withoutText) {
+            BeanUtils.copyProperties(vehicle, copy, "extras", "comments");
+        } else {
+            BeanUtils.copyProperties(vehicle, copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Estimated retained heap of a vehicle: fixed object overhead plus two bytes
+     * per character of every string field.
+     */
+    static int estimateBytes(Vehicle vehicle) {
+        long chars = length(vehicle.getMkt()) + length(vehicle.getMakeName()) + length(vehicle.getModelName())
+                + length(vehicle.getVariantName()) + length(vehicle.getVin()) + length(vehicle.getRegistration())
+                + length(vehicle.getMmCode()) + length(vehicle.getEngineNo()) + length(vehicle.getColour())
+                + length(vehicle.getProvinceName()) + length(vehicle.getCityName()) + length(vehicle.getTrim())
+                + length(vehicle.getCondition()) + length(vehicle.getStockCode()) + length(vehicle.getDepartment())
+                + length(vehicle.getCurrencySymbol()) + length(vehicle.getFranchise()) + length(vehicle.getExtras())
+                + length(vehicle.getComments()) + length(vehicle.getBodyType()) + length(vehicle.getTransmission())
+                + length(vehicle.getFuelType()) + length(vehicle.getEngineSize());
+        return (int) Math.min(Integer.MAX_VALUE, BASE_VEHICLE_BYTES + chars * 2);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * A cached vehicle; a non-zero text sequence means its extras and comments are in
+     * the text store.
+     */
+    private record Entry(Vehicle vehicle, long textSequence) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.trex.workflowservice.cache;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalized identity of a vehicle query, used to recognise requests that are
+ * guaranteed to produce the same result.
+ *
+ * Normalization follows the repository queries: single-value string filters are
+ * compared with LOWER() so they are lower-cased, numeric bounds compare by value so
+ * trailing zeros are dropped, and multi-value filters (SQL IN) only lose their order.
+ * Anything else (e.g. a Pageable) is kept as given.
+ */
+public record VehicleQueryKey(String operation, List<Object> parts) {
+
+    public static VehicleQueryKey of(String operation, Object... parts) {
+        List<Object> normalized = new ArrayList<>(parts.length);
+        for (Object part : parts) {
+            normalized.add(normalize(part));
+        }
+        return new VehicleQueryKey(operation, Collections.unmodifiableList(normalized));
+    }
+
+    private static Object normalize(Object part) {
+        if (part instanceof String value) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+        if (part instanceof BigDecimal value) {
+            return value.stripTrailingZeros();
+        }
+        if (part instanceof Collection<?> values) {
+            String[] sorted = values.stream().map(String::valueOf).toArray(String[]::new);
+            Arrays.sort(sorted);
+            return List.of(sorted);
+        }
+        return part;
+    }
+}
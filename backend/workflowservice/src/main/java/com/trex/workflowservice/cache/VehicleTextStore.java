@@ -0,0 +1,220 @@
+package com.trex.workflowservice.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap store for the large free-text fields of cached vehicles (extras, comments).
+ *
+ * Text is kept UTF-8 encoded in direct buffers allocated in fixed-size chunks and
+ * filled bump-pointer style; an id -> slot index locates each vehicle's bytes. Space
+ * is never reused in place. Once the store reaches its limit, live slots are copied
+ * into fresh chunks and the old ones are left to the garbage collector, so a reader
+ * holding a slot keeps reading valid bytes. If live data alone fills the store, new
+ * text is refused and stays on the heap.
+ */
+@Component
+public class VehicleTextStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleTextStore.class);
+
+    private final int chunkBytes;
+    private final int maxChunks;
+
+    private final Map<Long, Slot> index = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    // Guarded by this
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+
+    public VehicleTextStore(
+            MeterRegistry meterRegistry,
+            @Value("${vehicles.cache.detail.text-store.max-mb:128}") int maxMb,
+            @Value("${vehicles.cache.detail.text-store.chunk-kb:1024}") int chunkKb) {
+        this.chunkBytes = chunkKb * 1024;
+        this.maxChunks = Math.max(1, maxMb * 1024 / chunkKb);
+        Gauge.builder("vehicles.textstore.bytes", liveBytes, AtomicLong::get)
+            .tag("state", "live")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("vehicles.textstore.bytes", this, store -> store.allocatedBytes())
+            .tag("state", "allocated")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("vehicles.textstore.entries", index, Map::size)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stores the vehicle's text, replacing any previous text for the id.
+     *
+     * @return the slot's sequence number, or 0 if the store is full and the text
+     *         must stay on the heap
+     */
+    public long put(Long id, String extras, String comments) {
+        byte[] extrasBytes = extras != null ? extras.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] commentsBytes = comments != null ? comments.getBytes(StandardCharsets.UTF_8) : null;
+        int extrasLength = extrasBytes != null ? extrasBytes.length : 0;
+        int length = extrasLength + (commentsBytes != null ? commentsBytes.length : 0);
+        if (length > chunkBytes) {
+            return 0;
+        }
+
+        Slot slot;
+        synchronized (this) {
+            ByteBuffer chunk = allocate(length);
+            if (chunk == null) {
+                return 0;
+            }
+            int offset = chunk.position();
+            if (extrasBytes != null) {
+                chunk.put(extrasBytes);
+            }
+            if (commentsBytes != null) {
+                chunk.put(commentsBytes);
+            }
+            slot = new Slot(sequence.incrementAndGet(), chunk, offset,
+                            extrasBytes != null ? extrasLength : -1,
+                            commentsBytes != null ? commentsBytes.length : -1);
+        }
+        Slot previous = index.put(id, slot);
+        liveBytes.addAndGet(slot.size() - (previous != null ? previous.size() : 0));
+        return slot.sequence;
+    }
+
+    /**
+     * Returns the slot for the id if it still holds the given sequence.
+     */
+    public Slot get(Long id, long sequence) {
+        Slot slot = index.get(id);
+        return slot != null && slot.sequence == sequence ? slot : null;
+    }
+
+    /**
+     * Frees the id's text if it is still the given sequence; later puts are left alone.
+     */
+    public void release(Long id, long sequence) {
+        Slot slot = index.get(id);
+        if (slot != null && slot.sequence == sequence && index.remove(id, slot)) {
+            liveBytes.addAndGet(-slot.size());
+        }
+    }
+
+    public synchronized long allocatedBytes() {
+        return (long) chunks.size() * chunkBytes;
+    }
+
+    // Caller holds the lock
+    private ByteBuffer allocate(int length) {
+        if (current != null && current.remaining() >= length) {
+            return current;
+        }
+        if (chunks.size() >= maxChunks) {
+            compact();
+            if (current.remaining() >= length) {
+                return current;
+            }
+            if (chunks.size() >= maxChunks) {
+                return null;
+            }
+        }
+        current = ByteBuffer.allocateDirect(chunkBytes);
+        chunks.add(current);
+        return current;
+    }
+
+    /**
+     * Copies every live slot into fresh chunks. Slots keep their sequence numbers, so
+     * cache entries stay valid; the old chunks are freed once no reader holds them.
+     * Slots that don't fit stay where they are, and their old chunks stay counted until
+     * a later compaction moves them.
+     */
+    // Caller holds the lock
+    private void compact() {
+        long start = System.nanoTime();
+        long before = allocatedBytes();
+        chunks = new ArrayList<>();
+        current = ByteBuffer.allocateDirect(chunkBytes);
+        chunks.add(current);
+        boolean full = false;
+        for (Map.Entry<Long, Slot> entry : index.entrySet()) {
+            Slot slot = entry.getValue();
+            int length = slot.size();
+            if (current.remaining() < length) {
+                if (chunks.size() >= maxChunks) {
+                    full = true;
+                    break;
+                }
+                current = ByteBuffer.allocateDirect(chunkBytes);
+                chunks.add(current);
+            }
+            int offset = current.position();
+            current.put(current.position(), slot.chunk, slot.offset, length);
+            current.position(offset + length);
+            Slot moved = new Slot(slot.sequence, current, offset, slot.extrasLength, slot.commentsLength);
+            // Skip slots replaced or released while compacting
+            index.replace(entry.getKey(), slot, moved);
+        }
+        if (full) {
+            // ByteBuffer equality compares contents, so chunks are matched by identity
+            Set<ByteBuffer> unmoved = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Slot slot : index.values()) {
+                unmoved.add(slot.chunk);
+            }
+            chunks.forEach(unmoved::remove);
+            chunks.addAll(unmoved);
+        }
+        logger.info("Vehicle text store compacted from {} to {} bytes ({} live) in {} ms",
+                   before, allocatedBytes(), liveBytes.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Location of one vehicle's text: extras followed by comments, UTF-8 encoded.
+     * A length of -1 means the field is null. Slots are immutable and safe to read
+     * from any thread; reads use absolute positions only.
+     */
+    public static final class Slot {
+        private final long sequence;
+        private final ByteBuffer chunk;
+        private final int offset;
+        private final int extrasLength;
+        private final int commentsLength;
+
+        private Slot(long sequence, ByteBuffer chunk, int offset, int extrasLength, int commentsLength) {
+            this.sequence = sequence;
+            this.chunk = chunk;
+            this.offset = offset;
+            this.extrasLength = extrasLength;
+            this.commentsLength = commentsLength;
+        }
+
+        int size() {
+            return Math.max(0, extrasLength) + Math.max(0, commentsLength);
+        }
+
+        public OffHeapText extras() {
+            return extrasLength >= 0 ? new OffHeapText(chunk, offset, extrasLength) : null;
+        }
+
+        public OffHeapText comments() {
+            return commentsLength >= 0 ? new OffHeapText(chunk, offset + Math.max(0, extrasLength), commentsLength) : null;
+        }
+    }
+}
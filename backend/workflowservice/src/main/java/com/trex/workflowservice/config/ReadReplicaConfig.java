@@ -0,0 +1,86 @@
+package com.trex.workflowservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-replica routing, enabled with vehicles.datasource.replicas.enabled.
+ *
+ * Replaces the auto-configured pool with a primary pool and one pool per replica URL,
+ * each with its own Hikari metrics (hikaricp.* tagged by pool), behind a
+ * {@link ReplicaRoutingDataSource}. Replicas share the primary's credentials unless
+ * overridden.
+ */
+@Configuration
+@ConditionalOnProperty(name = "vehicles.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${vehicles.datasource.replicas.urls}") List<String> replicaUrls,
+            @Value("${vehicles.datasource.replicas.username:}") String replicaUsername,
+            @Value("${vehicles.datasource.replicas.password:}") String replicaPassword,
+            @Value("${vehicles.datasource.replicas.pool-size:10}") int replicaPoolSize,
+            @Value("${vehicles.datasource.replicas.max-lag:PT5S}") Duration maxLag) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metrics);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername);
+            replica.setPassword(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // Don't fail startup on a replica that is down; it stays out of rotation instead
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(metrics);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        // Set explicitly so the proxy doesn't open a connection at startup to find out
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        // Reads fall back to the primary, so replicas being out never makes the service DOWN
+        return () -> Health.up()
+            .withDetail("routing", replicaRoutingDataSource.hasUsableReplica() ? "replicas" : "primary-fallback")
+            .withDetails(replicaRoutingDataSource.replicaStatus())
+            .build();
+    }
+}
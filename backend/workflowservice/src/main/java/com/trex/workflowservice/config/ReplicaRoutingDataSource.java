@@ -0,0 +1,182 @@
+package com.trex.workflowservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Routes read-only transactions to healthy read replicas and everything else to the
+ * primary.
+ *
+ * Only transactions declared read-only by application code are routed; the implicit
+ * read-only transactions Spring Data opens around single repository reads stay on the
+ * primary, so code that reads back its own writes (workflow sessions, contact
+ * requests) is unaffected by replication lag. Replicas are probed on a fixed delay and
+ * skipped while unreachable or lagging more than the configured maximum; with none
+ * usable, reads fall back to the primary. Code that must not see a lagging copy (a
+ * cache reloading an entry that was just invalidated) wraps the read in
+ * {@link #readFromPrimary}.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy, since the read-only flag is only
+ * known once the transaction has started.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    // Implicit transactions opened by Spring Data repositories are named after SimpleJpaRepository
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    // Seconds the replica is behind; zero when it has replayed everything it received
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> primaryRequired = ThreadLocal.withInitial(() -> false);
+
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.replicas = replicas.entrySet().stream()
+            .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+            .toList();
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (Replica replica : this.replicas) {
+            Gauge.builder("vehicles.datasource.replica.lag", replica, r -> r.lagSeconds)
+                .tag("pool", replica.name)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+            Gauge.builder("vehicles.datasource.replica.usable", replica, r -> isUsable(r) ? 1 : 0)
+                .tag("pool", replica.name)
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the read on the primary. Only connections obtained inside the read are
+     * affected; a transaction that already holds a replica connection keeps it.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        if (primaryRequired.get()) {
+            return read.get();
+        }
+        primaryRequired.set(true);
+        try {
+            return read.get();
+        } finally {
+            primaryRequired.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (primaryRequired.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName == null || transactionName.startsWith(REPOSITORY_TRANSACTION_PREFIX)) {
+            return PRIMARY;
+        }
+
+        // Round-robin over the usable replicas
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (isUsable(replica)) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Probes every replica for reachability and replication lag.
+     */
+    @Scheduled(fixedDelayString = "${vehicles.datasource.replicas.check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasUsable = isUsable(replica);
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    replica.lagSeconds = rs.getDouble(1);
+                }
+                replica.healthy = true;
+            } catch (Exception e) {
+                replica.healthy = false;
+                logger.debug("Replica {} health check failed: {}", replica.name, e.getMessage());
+            }
+            boolean usable = isUsable(replica);
+            if (usable != wasUsable) {
+                logger.warn("Replica {} is now {} (healthy: {}, lag: {}s)",
+                           replica.name, usable ? "in rotation" : "out of rotation", replica.healthy, replica.lagSeconds);
+            }
+        }
+    }
+
+    /**
+     * Current state of each replica, for the health endpoint.
+     */
+    public Map<String, Object> replicaStatus() {
+        Map<String, Object> status = new HashMap<>();
+        for (Replica replica : replicas) {
+            status.put(replica.name, Map.of(
+                "healthy", replica.healthy,
+                "lagSeconds", replica.lagSeconds,
+                "inRotation", isUsable(replica)
+            ));
+        }
+        return status;
+    }
+
+    public boolean hasUsableReplica() {
+        return replicas.stream().anyMatch(this::isUsable);
+    }
+
+    private boolean isUsable(Replica replica) {
+        return replica.healthy && replica.lagSeconds <= maxLagSeconds;
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        // Out of rotation until the first successful check
+        volatile boolean healthy;
+        volatile double lagSeconds;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.trex.workflowservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling, scheduled jobs and @Async work on virtual threads (Java 21+),
+ * enabled by the "virtual-threads" profile (virtual-threads.enabled=true).
+ *
+ * Most of the request time is spent blocked in JDBC, so a thread per request costs
+ * nothing while it waits; concurrency is then bounded by the connection pool rather
+ * than by Tomcat's thread pool. Startup fails on an older JVM instead of silently
+ * falling back to platform threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("virtual-threads.enabled needs Java 21 or later, running on "
+                + System.getProperty("java.version"));
+        }
+        logger.info("Running requests, scheduled jobs and async tasks on virtual threads");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-vt-"));
+    }
+
+    // The scheduler's worker threads are virtual; the pool size still bounds how many
+    // jobs run at once, as with the default scheduler
+    @Bean
+    public TaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        return new ConcurrentTaskScheduler(
+            Executors.newScheduledThreadPool(poolSize, VirtualThreads.factory("scheduling-vt-")));
+    }
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-vt-"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.trex.workflowservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, typically by blocking I/O
+ * inside a synchronized block, using the JFR jdk.VirtualThreadPinned event.
+ *
+ * Pins longer than the threshold are timed as virtual.threads.pinned; the first pin at
+ * each code location is logged with its stack, later ones only at debug level. A
+ * pinned thread holds its carrier for the whole blocking call, so pins on a hot JDBC
+ * path cap concurrency at the number of carriers (CPU cores).
+ */
+@Component
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+    // Distinct locations kept for the log-once check
+    private static final int MAX_LOCATIONS = 1_000;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Map<String, AtomicLong> locations = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${virtual-threads.pinned-threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("virtual.threads.pinned")
+            .description("Virtual threads pinned to their carrier for longer than the threshold")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        logger.info("Reporting virtual threads pinned for longer than {} ms", threshold.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        if (recording != null) {
+            recording.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return;
+        }
+        String location = describe(firstApplicationFrame(stackTrace));
+        AtomicLong count = locations.get(location);
+        if (count == null && locations.size() < MAX_LOCATIONS) {
+            count = locations.computeIfAbsent(location, l -> new AtomicLong());
+        }
+        if (count != null && count.incrementAndGet() == 1) {
+            String stack = stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining("\n\tat "));
+            logger.warn("Virtual thread pinned for {} ms at {}:\n\tat {}",
+                        event.getDuration().toMillis(), location, stack);
+        } else {
+            logger.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), location);
+        }
+    }
+
+    // Our own frame closest to the pin, so pins are grouped by the code that caused them
+    private static RecordedFrame firstApplicationFrame(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith("com.trex.")) {
+                return frame;
+            }
+        }
+        return stackTrace.getFrames().get(0);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,56 @@
+package com.trex.workflowservice.controller;
+
+import com.trex.workflowservice.dto.SavedSearchRequest;
+import com.trex.workflowservice.model.SavedSearch;
+import com.trex.workflowservice.service.SavedSearchService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * SavedSearchController
+ * Lets buyers store search filters and be notified when matching vehicles arrive
+ */
+@RestController
+@RequestMapping("/api/saved-searches")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class SavedSearchController {
+
+    @Autowired
+    private SavedSearchService savedSearchService;
+
+    /**
+     * POST /api/saved-searches
+     * Store a new saved search
+     */
+    @PostMapping
+    public ResponseEntity<SavedSearch> createSavedSearch(@Valid @RequestBody SavedSearchRequest request) {
+        SavedSearch saved = savedSearchService.createSavedSearch(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    /**
+     * GET /api/saved-searches?email=...
+     * List the active saved searches for a buyer
+     */
+    @GetMapping
+    public ResponseEntity<List<SavedSearch>> getSavedSearches(@RequestParam String email) {
+        return ResponseEntity.ok(savedSearchService.getSavedSearches(email));
+    }
+
+    /**
+     * DELETE /api/saved-searches/{id}
+     * Stop notifications for a saved search
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSavedSearch(@PathVariable Long id) {
+        if (!savedSearchService.deactivateSavedSearch(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
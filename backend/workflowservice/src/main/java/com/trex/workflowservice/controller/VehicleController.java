@@ -1,5 +1,6 @@
 package com.trex.workflowservice.controller;
 
+import com.trex.workflowservice.dto.VehicleDetail;
 import com.trex.workflowservice.model.Vehicle;
 import com.trex.workflowservice.service.VehicleService;
 import org.slf4j.Logger;
@@ -169,11 +170,11 @@ public class VehicleController {
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Vehicle> getVehicleById(@PathVariable Long id) {
+    public ResponseEntity<VehicleDetail> getVehicleById(@PathVariable Long id) {
         logger.info("Get vehicle by id: {}", id);
         
         try {
-            Optional<Vehicle> vehicle = vehicleService.getVehicleById(id);
+            Optional<VehicleDetail> vehicle = vehicleService.getVehicleDetail(id);
             
             if (vehicle.isPresent()) {
                 logger.info("Vehicle found with id: {}", id);
@@ -189,6 +190,36 @@ public class VehicleController {
         }
     }
     
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<Map<String, Object>> getSimilarVehicles(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "6") int limit) {
+        logger.info("Get vehicles similar to id: {}, limit: {}", id, limit);
+        
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, 50));
+            Optional<List<Vehicle>> similarVehicles = vehicleService.getSimilarVehicles(id, boundedLimit);
+            
+            if (similarVehicles.isEmpty()) {
+                logger.warn("Vehicle not found with id: {}", id);
+                return ResponseEntity.notFound().build();
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("vehicleId", id);
+            response.put("vehicles", similarVehicles.get());
+            
+            logger.info("Found {} vehicles similar to id: {}", similarVehicles.get().size(), id);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving vehicles similar to id: {}", id, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Error retrieving similar vehicles: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+    
     @CrossOrigin(origins = "*", allowedHeaders = "*")
     @GetMapping("/filters")
     public ResponseEntity<Map<String, Object>> getSearchFilters() {
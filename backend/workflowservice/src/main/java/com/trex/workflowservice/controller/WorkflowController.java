@@ -1,135 +1,206 @@
 package com.trex.workflowservice.controller;
 
+import com.trex.workflowservice.dto.BatchTransitionRequest;
+import com.trex.workflowservice.dto.StepPayload;
+import com.trex.workflowservice.dto.TokenTransitionRequest;
+import com.trex.workflowservice.dto.WorkflowTokenResponse;
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import com.trex.workflowservice.repository.WorkflowStateRepository;
+import com.trex.workflowservice.service.StatelessWorkflowService;
+import com.trex.workflowservice.service.TransitionResponseCache;
+import com.trex.workflowservice.service.WorkflowEngine;
+import com.trex.workflowservice.service.WorkflowFunnelMetrics;
+import com.trex.workflowservice.service.WorkflowStatePartitions;
+import com.trex.workflowservice.service.WorkflowStatusCounts;
+import jakarta.validation.Valid;
+import com.trex.workflowservice.workflow.StepPayloads;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
  @RestController
  @RequestMapping("/api/workflow")
  @Slf4j
+ @RequiredArgsConstructor
  @CrossOrigin(origins = "*", allowedHeaders = "*")
  public class WorkflowController {
 
+    // Static step responses, rendered to JSON once at startup
+    private final StepPayloads stepPayloads;
+    private final WorkflowFunnelMetrics funnel;
+    private final WorkflowEngine workflowEngine;
+    private final StatelessWorkflowService statelessWorkflows;
+    private final TransitionResponseCache transitionResponses;
+    private final WorkflowStatusCounts statusCounts;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final WorkflowStatePartitions partitions;
+
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Backend is working!");
     }
 
     @PostMapping("/start")
-    public ResponseEntity<Map<String, Object>> startWorkflow(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<StepPayload> startWorkflow(@RequestBody Map<String, Object> request) {
         log.info("Starting workflow request: {}", request);
         
         String workflowType = (String) request.get("workflowType");
         
         // Always start with intent selection for both buying and selling
-        Map<String, Object> response = Map.of(
-                "stepId", "intent-selection",
-                "componentName", "IntentSelection",
-                "data", Map.of(
-                    "message", "Do you want to buy, or sell a vehicle?",
-                    "options", Map.of(
-                        "buying", "I want to buy a vehicle",
-                        "selling", "I want to sell my vehicle"
-                    )
-                ),
-                "stepNumber", 1,
-                "totalSteps", "dynamic", // Steps vary based on user choices
-                "canGoBack", false,
-                "navigationOptions", Map.of(
-                    "canGoBack", false,
-                    "nextStepId", "dynamic"
-                ),
-                "status", "SUCCESS"
-        );
-        
-        return ResponseEntity.ok(response);
+        funnel.record(workflowType, "intent-selection", WorkflowFunnelMetrics.STARTED);
+        return ResponseEntity.ok(stepPayloads.get(StepPayloads.START));
     }
 
+    /**
+     * Computes the next step from the current one and its answers. An optional
+     * idempotencyKey, together with the client's sessionId, makes a double submit or client
+     * retry get the first call's response instead of being counted again. Without a
+     * sessionId the key is ignored: nothing would keep one client's cached response from
+     * another's.
+     */
     @PostMapping("/transition")
-    public ResponseEntity<Map<String, Object>> transition(@RequestBody Map<String, Object> request) {
-        log.error("=== TRANSITION METHOD CALLED ===");
-        log.error("Request: {}", request);
-        log.info("Transition request: {}", request);
+    public ResponseEntity<Object> transition(@RequestBody Map<String, Object> request) {
+        if (!(request.get("idempotencyKey") instanceof String idempotencyKey) || idempotencyKey.isBlank()
+                || !(request.get("sessionId") instanceof String sessionId) || sessionId.isBlank()) {
+            return ResponseEntity.ok(nextStep(request));
+        }
+        if (idempotencyKey.length() > 100) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Idempotency key must be at most 100 characters"));
+        }
+        Object response = transitionResponses.execute(TransitionResponseCache.Scope.STATELESS_TRANSITION,
+                sessionId, idempotencyKey, () -> nextStep(request), step -> "SYSTEM_ERROR".equals(outcomeOf(step)));
+        return ResponseEntity.ok(response);
+    }
+
+    private Object nextStep(Map<String, Object> request) {
+        log.debug("Transition request: {}", request);
         
         String currentStep = (String) request.get("currentStep");
         Map<String, Object> data = (Map<String, Object>) request.get("data");
-        
-        log.error("Current step: {}", currentStep);
-        log.error("Data: {}", data);
+        String workflowType = (String) request.get("workflowType");
         
         // SPECIAL TEST: If replacement-check with financing=yes, force FinancingAssistanceComplete
         if ("replacement-check".equals(currentStep) && data != null) {
             String replacement = (String) data.get("replacement");
             String financing = (String) data.get("financing");
-            log.error("Replacement: {}, Financing: {}", replacement, financing);
             
             if ("no_replacement".equals(replacement) && "yes".equals(financing)) {
-                log.error("FORCING FinancingAssistanceComplete response!");
-                return ResponseEntity.ok(createFinancingAssistanceResponse());
+                log.debug("Financing requested without a replacement, completing with financing assistance");
+                funnel.record(workflowType, currentStep, "SUCCESS");
+                return createFinancingAssistanceResponse();
             }
         }
         
         // Enhanced workflow transitions based on Core Application Flow
-        Map<String, Object> response = getNextStepResponse(currentStep, data);
+        Object response = getNextStepResponse(currentStep, data);
+        funnel.record(workflowType, currentStep, outcomeOf(response));
         
-        log.error("Response: {}", response);
+        log.debug("Transition response: {}", response);
         
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    /**
+     * Applies an ordered list of steps to a stored session in one go, for clients that
+     * already have every answer. Returns the step reached after the last one; if a step
+     * fails, nothing is applied and the response names the failing step.
+     */
+    @PostMapping("/transition/batch")
+    public ResponseEntity<WorkflowTransitionResponse> transitionBatch(@Valid @RequestBody BatchTransitionRequest request) {
+        log.info("Batch transition request for session {} with {} steps",
+                request.getSessionId(), request.getSteps().size());
+        
+        WorkflowTransitionResponse response = workflowEngine.transitionBatch(
+                request.getSessionId(), request.getSteps(), request.getIdempotencyKey());
+        
+        return ResponseEntity.status(httpStatusOf(response)).body(response);
+    }
+
+    /*
+     * Token mode: the session travels in a signed token instead of being stored. Every
+     * response carries the token for the next call, or the session id once the session
+     * has been stored (on completion, on /token/save, or when it outgrows a token).
+     */
+
+    @PostMapping("/token/start")
+    public ResponseEntity<WorkflowTokenResponse> startTokenWorkflow(@RequestBody Map<String, Object> request) {
+        String workflowType = (String) request.get("workflowType");
+        log.info("Starting token-mode workflow: {}", workflowType);
+        
+        WorkflowTokenResponse response = statelessWorkflows.start(workflowType);
+        return ResponseEntity.status(httpStatusOf(response.getStep())).body(response);
+    }
+
+    @PostMapping("/token/transition")
+    public ResponseEntity<WorkflowTokenResponse> tokenTransition(@Valid @RequestBody TokenTransitionRequest request) {
+        log.info("Token-mode transition from step: {}", request.getCurrentStep());
+        
+        WorkflowTokenResponse response = statelessWorkflows.transition(
+                request.getToken(), request.getCurrentStep(), request.getData());
+        return ResponseEntity.status(httpStatusOf(response.getStep())).body(response);
+    }
+
+    @PostMapping("/token/back")
+    public ResponseEntity<WorkflowTokenResponse> tokenBack(@Valid @RequestBody TokenTransitionRequest request) {
+        log.info("Token-mode back navigation from step: {}", request.getCurrentStep());
+        
+        WorkflowTokenResponse response = statelessWorkflows.goBack(request.getToken(), request.getCurrentStep());
+        return ResponseEntity.status(httpStatusOf(response.getStep())).body(response);
+    }
+
+    @PostMapping("/token/save")
+    public ResponseEntity<WorkflowTokenResponse> saveTokenWorkflow(@Valid @RequestBody TokenTransitionRequest request) {
+        log.info("Storing token-mode workflow");
+        
+        WorkflowTokenResponse response = statelessWorkflows.save(request.getToken());
+        return ResponseEntity.status(httpStatusOf(response.getStep())).body(response);
+    }
+
+    private static HttpStatus httpStatusOf(WorkflowTransitionResponse response) {
+        return switch (response.getStatus()) {
+            case SUCCESS -> HttpStatus.OK;
+            case VALIDATION_ERROR, BUSINESS_RULE_ERROR -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case SYSTEM_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
+        };
     }
 
     @PostMapping("/back")
-    public ResponseEntity<Map<String, Object>> goBack(@RequestBody Map<String, Object> request) {
-        log.error("=== BACK NAVIGATION REQUEST ===");
-        log.error("Back navigation request: {}", request);
+    public ResponseEntity<Object> goBack(@RequestBody Map<String, Object> request) {
+        log.debug("Back navigation request: {}", request);
         
         String currentStep = (String) request.get("currentStep");
         Map<String, Object> data = (Map<String, Object>) request.get("data");
-        String sessionId = (String) request.get("sessionId");
-        
-        log.error("Current step: {}, SessionId: {}", currentStep, sessionId);
-        log.error("Data: {}", data);
+        String workflowType = (String) request.get("workflowType");
+        funnel.record(workflowType, currentStep, WorkflowFunnelMetrics.BACK);
         
         // Simple test - if replacement-check, return success directly
         if ("replacement-check".equals(currentStep)) {
-            log.error("=== DIRECT REPLACEMENT CHECK TEST ===");
-            Map<String, Object> directResponse = Map.of(
-                "stepId", "private-buyer",
-                "componentName", "PrivateBuyer",
-                "data", Map.of("message", "Tell us about your private buyer"),
-                "stepNumber", 4,
-                "totalSteps", "5-7",
-                "canGoBack", true,
-                "status", "SUCCESS"
-            );
-            log.error("Direct response: {}", directResponse);
-            return ResponseEntity.ok(directResponse);
+            return ResponseEntity.ok(stepPayloads.get(StepPayloads.PRIVATE_BUYER_SUMMARY));
         }
         
-        Map<String, Object> response = getPreviousStepResponse(currentStep, data);
+        Object response = getPreviousStepResponse(currentStep, data);
         
-        log.error("Back navigation response: {}", response);
+        log.debug("Back navigation response: {}", response);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/status/{sessionId}")
-    public ResponseEntity<Map<String, Object>> getWorkflowStatus(@PathVariable String sessionId) {
+    public ResponseEntity<StepPayload> getWorkflowStatus(@PathVariable String sessionId) {
         log.info("Getting workflow status for session: {}", sessionId);
         
         // Return current step status
-        Map<String, Object> response = Map.of(
-                "stepId", "intent-selection",
-                "componentName", "IntentSelection",
-                "data", Map.of("message", "What would you like to do today?"),
-                "stepNumber", 1,
-                "totalSteps", "dynamic",
-                "canGoBack", false,
-                "status", "SUCCESS"
-        );
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(stepPayloads.get(StepPayloads.STATUS));
     }
 
     @DeleteMapping("/abandon/{sessionId}")
@@ -138,12 +209,56 @@ import java.util.HashMap;
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Sessions per workflow type and status, from the maintained counts.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getWorkflowStats() {
+        return ResponseEntity.ok(statusCounts.counts());
+    }
+
+    /**
+     * One page of the resumable sessions of a type and status, most recently updated
+     * first; the total comes from the maintained counts.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> listSessions(
+            @RequestParam String workflowType,
+            @RequestParam WorkflowState.WorkflowStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100),
+                Sort.by(Sort.Direction.DESC, "updatedAt"));
+        Slice<WorkflowState> sessions = workflowStateRepository.findByWorkflowTypeAndStatus(
+                workflowType, status, partitions.activeSince(), pageRequest);
+        
+        List<Map<String, Object>> summaries = sessions.getContent().stream()
+                .map(state -> {
+                    // Only what operations needs. The endpoint is public and a session id is
+                    // all it takes to drive a session, so ids stay out with the user data
+                    Map<String, Object> summary = new LinkedHashMap<>();
+                    summary.put("currentStep", state.getCurrentStep());
+                    summary.put("createdAt", state.getCreatedAt());
+                    summary.put("updatedAt", state.getUpdatedAt());
+                    return summary;
+                })
+                .toList();
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sessions", summaries);
+        response.put("page", sessions.getNumber());
+        response.put("size", sessions.getSize());
+        response.put("hasNext", sessions.hasNext());
+        response.put("total", statusCounts.count(workflowType, status));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Workflow service is healthy");
     }
 
-    private Map<String, Object> getNextStepResponse(String currentStep, Map<String, Object> data) {
+    private Object getNextStepResponse(String currentStep, Map<String, Object> data) {
         log.info("getNextStepResponse called with currentStep: {} and data: {}", currentStep, data);
         return switch (currentStep) {
             case "intent-selection" -> handleIntentSelection(data);
@@ -298,18 +413,17 @@ import java.util.HashMap;
         );
     }
 
-    private Map<String, Object> handleSearchResults(Map<String, Object> data) {
+    private StepPayload handleSearchResults(Map<String, Object> data) {
         return handleVehicleSelection(data);
     }
 
-    private Map<String, Object> handleCarInResults(Map<String, Object> data) {
+    private StepPayload handleCarInResults(Map<String, Object> data) {
         return handleVehicleSelection(data);
     }
 
-    private Map<String, Object> handleVehicleSelection(Map<String, Object> data) {
-        return Map.of(
-                "stepId", "buying-confirmation",
-                "componentName", "BuyingConfirmation",
+    private StepPayload handleVehicleSelection(Map<String, Object> data) {
+        // Only "data" depends on the request; the rest of the step is pre-rendered
+        return stepPayloads.get(StepPayloads.BUYING_CONFIRMATION).with(Map.of(
                 "data", Map.of(
                     "message", "Confirm your vehicle selection and provide contact details",
                     "selectedVehicle", data.get("selectedVehicle"),
@@ -318,13 +432,8 @@ import java.util.HashMap;
                         "email", "Email Address",
                         "phone", "Phone Number"
                     )
-                ),
-                "stepNumber", 5,
-                "totalSteps", "6",
-                "canGoBack", true,
-                "previousStep", "vehicle-selection",
-                "status", "SUCCESS"
-        );
+                )
+        ));
     }
 
     private Map<String, Object> handleVehicleValuationReport(Map<String, Object> data) {
@@ -764,365 +873,95 @@ import java.util.HashMap;
         );
     }
 
-    private Map<String, Object> getPreviousStepResponse(String currentStep, Map<String, Object> data) {
-        log.error("=== GETTING PREVIOUS STEP ===");
-        log.error("Current step: '{}'", currentStep);
-        log.error("Data: {}", data);
-        
-        // Use if-else approach for better debugging and reliability
-        if ("replacement-check".equals(currentStep)) {
-            log.error("=== REPLACEMENT CHECK BACK NAVIGATION ===");
-            return Map.of(
-                "stepId", "private-buyer",
-                "componentName", "PrivateBuyer",
-                "data", Map.of(
-                    "message", "Tell us about your private buyer",
-                    "buyerInfo", Map.of(
-                        "financing", "Do you need help with financing for your buyer?",
-                        "options", Map.of(
-                            "yes", "Yes, I need financing assistance",
-                            "no", "No, financing is handled"
-                        )
-                    )
-                ),
-                "stepNumber", 4,
-                "totalSteps", "5-7",
-                "canGoBack", true,
-                "previousStep", "buyer-type",
-                "status", "SUCCESS"
-            );
-        }
-        
-        if ("buyer-type".equals(currentStep)) {
-            log.error("=== BUYER TYPE BACK NAVIGATION ===");
-            return Map.of(
-                "stepId", "has-buyer",
-                "componentName", "HasBuyer",
-                "data", Map.of(
-                    "message", "Do you already have a buyer for your vehicle?",
-                    "options", Map.of(
-                        "has_buyer", "Yes, I have a buyer",
-                        "no_buyer", "No, I need help finding a buyer"
-                    )
-                ),
-                "stepNumber", 2,
-                "totalSteps", "4-7",
-                "canGoBack", true,
-                "previousStep", "intent-selection",
-                "status", "SUCCESS"
-            );
-        }
-        
-        if ("private-buyer".equals(currentStep)) {
-            log.error("=== PRIVATE BUYER BACK NAVIGATION ===");
-            return Map.of(
-                "stepId", "buyer-type",
-                "componentName", "BuyerType",
-                "data", Map.of(
-                    "message", "What type of buyer do you have?",
-                    "options", Map.of(
-                        "private", "Private individual",
-                        "dealer", "Dealer/Trade-in"
-                    )
-                ),
-                "stepNumber", 3,
-                "totalSteps", "5-7",
-                "canGoBack", true,
-                "previousStep", "has-buyer",
-                "status", "SUCCESS"
-            );
-        }
-        
-        if ("dealer-network".equals(currentStep)) {
-            log.error("=== DEALER NETWORK BACK NAVIGATION ===");
-            return Map.of(
-                "stepId", "has-buyer",
-                "componentName", "HasBuyer",
-                "data", Map.of(
-                    "message", "Do you already have a buyer for your vehicle?",
-                    "options", Map.of(
-                        "has_buyer", "Yes, I have a buyer",
-                        "no_buyer", "No, I need help finding a buyer"
-                    )
-                ),
-                "stepNumber", 2,
-                "totalSteps", "4-7",
-                "canGoBack", true,
-                "previousStep", "intent-selection",
-                "status", "SUCCESS"
-            );
-        }
-        
-        if ("has-buyer".equals(currentStep)) {
-            log.error("=== HAS BUYER BACK NAVIGATION ===");
-            return Map.of(
-                "stepId", "intent-selection",
-                "componentName", "IntentSelection",
-                "data", Map.of(
-                    "message", "What would you like to do today?",
-                    "options", Map.of(
-                        "buying", "I want to buy a vehicle",
-                        "selling", "I want to sell my vehicle"
-                    )
-                ),
-                "stepNumber", 1,
-                "totalSteps", "dynamic",
-                "canGoBack", false,
-                "status", "SUCCESS"
-            );
-        }
-        
+    private Object getPreviousStepResponse(String currentStep, Map<String, Object> data) {
         return switch (currentStep) {
             // PHASE 1: BUYING FLOW BACK NAVIGATION
             case "vehicle-purchase-confirmation" -> {
                 log.info("Going back from vehicle-purchase-confirmation to search-results (Phase 1)");
-                yield Map.of(
-                    "stepId", "search-results",
-                    "componentName", "SearchResults",
-                    "data", Map.of(
-                        "message", "Here are vehicles matching your criteria"
-                    ),
-                    "stepNumber", 3,
-                    "totalSteps", "5",
-                    "canGoBack", true,
-                    "status", "SUCCESS"
-                );
+                yield stepPayloads.get(StepPayloads.SEARCH_RESULTS_SUMMARY);
             }
             
             // BUYING FLOW BACK NAVIGATION
             case "vehicle-knowledge" -> {
-                log.error("Going back from vehicle-knowledge to intent-selection");
-                yield Map.of(
-                    "stepId", "intent-selection",
-                    "componentName", "IntentSelection",
-                    "data", Map.of(
-                        "message", "What would you like to do today?",
-                        "options", Map.of(
-                            "buying", "I want to buy a vehicle",
-                            "selling", "I want to sell my vehicle"
-                        )
-                    ),
-                    "stepNumber", 1,
-                    "totalSteps", "dynamic",
-                    "canGoBack", false,
-                    "status", "SUCCESS"
-                );
+                log.debug("Going back from vehicle-knowledge to intent-selection");
+                yield stepPayloads.get(StepPayloads.INTENT_SELECTION);
             }
             
             case "vehicle-search" -> {
                 // PHASE 1: Go back to vehicle-help-question
                 log.info("Going back from vehicle-search to vehicle-help-question (Phase 1)");
-                yield Map.of(
-                    "stepId", "vehicle-help-question",
-                    "componentName", "VehicleHelpQuestion",
-                    "data", Map.of(
-                        "message", "Can we help you find a vehicle?",
-                        "subMessage", "Click the button below to start searching for a vehicle.",
-                        "showButton", true,
-                        "buttonText", "Yes, help me find a vehicle"
-                    ),
-                    "stepNumber", 1,
-                    "totalSteps", "5",
-                    "canGoBack", false,
-                    "status", "SUCCESS"
-                );
+                yield stepPayloads.get(StepPayloads.VEHICLE_HELP_QUESTION);
             }
             
             case "carin-analytics" -> {
-                log.error("Going back from {} to vehicle-knowledge", currentStep);
-                yield Map.of(
-                    "stepId", "vehicle-knowledge",
-                    "componentName", "VehicleKnowledge",
-                    "data", Map.of(
-                        "message", "Do you already know which vehicle you want?",
-                        "options", Map.of(
-                            "knows_vehicle", "Yes, I know what I want",
-                            "needs_help", "No, I need help choosing"
-                        )
-                    ),
-                    "stepNumber", 2,
-                    "totalSteps", "5-8",
-                    "canGoBack", true,
-                    "previousStep", "intent-selection",
-                    "status", "SUCCESS"
-                );
+                log.debug("Going back from {} to vehicle-knowledge", currentStep);
+                yield stepPayloads.get(StepPayloads.VEHICLE_KNOWLEDGE);
             }
             
             case "search-results", "carin-results" -> {
                 String previousStep = "carin-results".equals(currentStep) ? "carin-analytics" : "vehicle-search";
-                log.error("Going back from {} to {}", currentStep, previousStep);
-                
-                if ("carin-analytics".equals(previousStep)) {
-                    yield Map.of(
-                        "stepId", "carin-analytics",
-                        "componentName", "CarInAnalytics",
-                        "data", Map.of(
-                            "message", "Help us understand your preferences",
-                            "questions", Map.of(
-                                "budget", "What's your budget range?",
-                                "usage", "How will you primarily use the vehicle?",
-                                "features", "Which features are most important to you?"
-                            )
-                        ),
-                        "stepNumber", 3,
-                        "totalSteps", "6-8",
-                        "canGoBack", true,
-                        "previousStep", "vehicle-knowledge",
-                        "status", "SUCCESS"
-                    );
-                } else {
-                    yield Map.of(
-                        "stepId", "vehicle-search",
-                        "componentName", "VehicleSearch",
-                        "data", Map.of(
-                            "message", "Search for your ideal vehicle",
-                            "searchCriteria", Map.of(
-                                "make", "",
-                                "model", "",
-                                "yearRange", "",
-                                "priceRange", ""
-                            )
-                        ),
-                        "stepNumber", 3,
-                        "totalSteps", "5-7",
-                        "canGoBack", true,
-                        "previousStep", "vehicle-knowledge",
-                        "status", "SUCCESS"
-                    );
-                }
+                log.debug("Going back from {} to {}", currentStep, previousStep);
+                yield stepPayloads.get("carin-analytics".equals(previousStep)
+                        ? StepPayloads.CARIN_ANALYTICS : StepPayloads.VEHICLE_SEARCH);
             }
             
             case "buying-confirmation" -> {
-                log.error("Going back from buying-confirmation to search-results");
-                yield Map.of(
-                    "stepId", "search-results",
-                    "componentName", "SearchResults",
-                    "data", Map.of(
-                        "message", "Here are vehicles matching your criteria",
-                        "results", Map.of("total", 3)
-                    ),
-                    "stepNumber", 4,
-                    "totalSteps", "5-8",
-                    "canGoBack", true,
-                    "previousStep", "vehicle-search",
-                    "status", "SUCCESS"
-                );
+                log.debug("Going back from buying-confirmation to search-results");
+                yield stepPayloads.get(StepPayloads.SEARCH_RESULTS);
             }
             
             // SELLING FLOW BACK NAVIGATION
             case "has-buyer" -> {
-                log.error("Going back from has-buyer to intent-selection");
-                yield Map.of(
-                    "stepId", "intent-selection",
-                    "componentName", "IntentSelection",
-                    "data", Map.of(
-                        "message", "What would you like to do today?",
-                        "options", Map.of(
-                            "buying", "I want to buy a vehicle",
-                            "selling", "I want to sell my vehicle"
-                        )
-                    ),
-                    "stepNumber", 1,
-                    "totalSteps", "dynamic",
-                    "canGoBack", false,
-                    "status", "SUCCESS"
-                );
+                log.debug("Going back from has-buyer to intent-selection");
+                yield stepPayloads.get(StepPayloads.INTENT_SELECTION);
             }
             
             case "buyer-type" -> {
-                log.error("Going back from buyer-type to has-buyer");
-                yield Map.of(
-                    "stepId", "has-buyer",
-                    "componentName", "HasBuyer",
-                    "data", Map.of(
-                        "message", "Do you already have a buyer for your vehicle?",
-                        "options", Map.of(
-                            "has_buyer", "Yes, I have a buyer",
-                            "no_buyer", "No, I need help finding a buyer"
-                        )
-                    ),
-                    "stepNumber", 2,
-                    "totalSteps", "4-7",
-                    "canGoBack", true,
-                    "previousStep", "intent-selection",
-                    "status", "SUCCESS"
-                );
+                log.debug("Going back from buyer-type to has-buyer");
+                yield stepPayloads.get(StepPayloads.HAS_BUYER);
             }
             
             case "private-buyer", "dealer-network", "vehicle-selling-form" -> {
                 String previousStep = "private-buyer".equals(currentStep) ? "buyer-type" : "has-buyer";
-                log.error("Going back from {} to {}", currentStep, previousStep);
-                
-                if ("buyer-type".equals(previousStep)) {
-                    yield Map.of(
-                        "stepId", "buyer-type",
-                        "componentName", "BuyerType",
-                        "data", Map.of(
-                            "message", "What type of buyer do you have?",
-                            "options", Map.of(
-                                "private", "Private individual",
-                                "dealer", "Dealer/Trade-in"
-                            )
-                        ),
-                        "stepNumber", 3,
-                        "totalSteps", "5-7",
-                        "canGoBack", true,
-                        "previousStep", "has-buyer",
-                        "status", "SUCCESS"
-                    );
-                } else {
-                    yield Map.of(
-                        "stepId", "has-buyer",
-                        "componentName", "HasBuyer",
-                        "data", Map.of(
-                            "message", "Do you already have a buyer for your vehicle?",
-                            "options", Map.of(
-                                "has_buyer", "Yes, I have a buyer",
-                                "no_buyer", "No, I need help finding a buyer"
-                            )
-                        ),
-                        "stepNumber", 2,
-                        "totalSteps", "4-7",
-                        "canGoBack", true,
-                        "previousStep", "intent-selection",
-                        "status", "SUCCESS"
-                    );
-                }
+                log.debug("Going back from {} to {}", currentStep, previousStep);
+                yield stepPayloads.get("buyer-type".equals(previousStep)
+                        ? StepPayloads.BUYER_TYPE : StepPayloads.HAS_BUYER);
+            }
+            
+            case "replacement-check" -> {
+                log.debug("Going back from replacement-check to private-buyer");
+                yield stepPayloads.get(StepPayloads.PRIVATE_BUYER);
             }
             
             // PHASE 1: Allow back from buying-complete
             case "buying-complete" -> {
                 log.info("Going back from buying-complete to vehicle-purchase-confirmation (Phase 1)");
-                yield Map.of(
-                    "stepId", "vehicle-purchase-confirmation",
-                    "componentName", "VehiclePurchaseConfirmation",
-                    "data", Map.of(
-                        "message", "Complete your vehicle purchase request"
-                    ),
-                    "stepNumber", 4,
-                    "totalSteps", "5",
-                    "canGoBack", true,
-                    "status", "SUCCESS"
-                );
+                yield stepPayloads.get(StepPayloads.VEHICLE_PURCHASE_CONFIRMATION);
             }
             
             // COMPLETION STEPS - Generally cannot go back
             case "selling-complete", "financing-assistance-complete", 
                  "dealer-network-complete", "no-assistance-needed" -> {
-                log.error("Cannot go back from completion step: {}", currentStep);
+                log.warn("Cannot go back from completion step: {}", currentStep);
                 yield createErrorResponse("Cannot go back from completion step: " + currentStep);
             }
             
             // DEFAULT CASE
             default -> {
-                log.error("=== DEFAULT CASE REACHED ===");
-                log.error("Unknown step for back navigation: '{}'", currentStep);
-                log.error("Available cases should include: replacement-check");
+                log.warn("Unknown step for back navigation: '{}'", currentStep);
                 yield createErrorResponse("Cannot go back from step: " + currentStep);
             }
         };
     }
 
+    // Step responses are maps with a "status" or pre-rendered successful steps
+    private static String outcomeOf(Object response) {
+        if (response instanceof Map<?, ?> map && map.get("status") instanceof String status) {
+            return status;
+        }
+        return "SUCCESS";
+    }
+
     private Map<String, Object> createErrorResponse(String message) {
         return Map.of(
                 "status", "SYSTEM_ERROR",
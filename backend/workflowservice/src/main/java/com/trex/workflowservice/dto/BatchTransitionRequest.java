@@ -0,0 +1,43 @@
+package com.trex.workflowservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransitionRequest {
+
+    @NotBlank(message = "Session ID is required")
+    private String sessionId;
+
+    // Applied in order, starting from the session's current step
+    @NotEmpty(message = "At least one step is required")
+    @Size(max = 50, message = "At most 50 steps per batch")
+    private List<@Valid Step> steps;
+
+    // Optional; the same key sent again returns the first response
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Step {
+
+        @NotBlank(message = "Step is required")
+        private String step;
+
+        @NotNull(message = "Data is required")
+        private Map<String, Object> data;
+    }
+}
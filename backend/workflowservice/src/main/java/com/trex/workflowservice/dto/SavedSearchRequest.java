@@ -0,0 +1,30 @@
+package com.trex.workflowservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+public class SavedSearchRequest {
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email must be valid")
+    private String email;
+
+    private String make;
+    private String model;
+    private String province;
+    private String city;
+    private Integer minYear;
+    private Integer maxYear;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer maxMileage;
+    private String fuelType;
+    private String bodyType;
+    private String transmission;
+}
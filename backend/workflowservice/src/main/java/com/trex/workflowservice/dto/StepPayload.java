@@ -0,0 +1,117 @@
+package com.trex.workflowservice.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A workflow step response whose static fields were rendered to UTF-8 JSON once.
+ *
+ * Each top-level field's name and value are kept pre-encoded; a JSON response copies
+ * them straight into the generator's buffer, and only the fields added with
+ * {@link #with} are serialized per request, in the same streaming pass. Other formats
+ * (Smile, CBOR) serialize the original values.
+ */
+@JsonSerialize(using = StepPayload.Serializer.class)
+public final class StepPayload {
+
+    private final String name;
+    private final SerializedString[] fieldNames;
+    private final SerializedString[] renderedValues;
+    private final Object[] values;
+    private final Map<String, Object> dynamicFields;
+
+    private StepPayload(String name, SerializedString[] fieldNames, SerializedString[] renderedValues,
+                        Object[] values, Map<String, Object> dynamicFields) {
+        this.name = name;
+        this.fieldNames = fieldNames;
+        this.renderedValues = renderedValues;
+        this.values = values;
+        this.dynamicFields = dynamicFields;
+    }
+
+    /**
+     * Renders the response with the given mapper, so the bytes match what the mapper
+     * would produce for the map itself.
+     */
+    public static StepPayload render(String name, Map<String, Object> response, ObjectMapper mapper) {
+        int size = response.size();
+        SerializedString[] fieldNames = new SerializedString[size];
+        SerializedString[] renderedValues = new SerializedString[size];
+        Object[] values = new Object[size];
+        int i = 0;
+        for (Map.Entry<String, Object> field : response.entrySet()) {
+            try {
+                fieldNames[i] = new SerializedString(field.getKey());
+                renderedValues[i] = new SerializedString(mapper.writeValueAsString(field.getValue()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot render step payload " + name, e);
+            }
+            // Encode now rather than on the first request
+            fieldNames[i].asQuotedUTF8();
+            renderedValues[i].asUnquotedUTF8();
+            values[i] = field.getValue();
+            i++;
+        }
+        return new StepPayload(name, fieldNames, renderedValues, values, null);
+    }
+
+    /**
+     * Returns this payload with request-specific fields added after the static ones.
+     * A dynamic field must not repeat a static field's name.
+     */
+    public StepPayload with(Map<String, Object> fields) {
+        Map<String, Object> merged = new LinkedHashMap<>();
+        if (dynamicFields != null) {
+            merged.putAll(dynamicFields);
+        }
+        merged.putAll(fields);
+        return new StepPayload(name, fieldNames, renderedValues, values, merged);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return dynamicFields != null ? "StepPayload[" + name + ", " + dynamicFields + "]" : "StepPayload[" + name + "]";
+    }
+
+    public static final class Serializer extends StdSerializer<StepPayload> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(StepPayload.class);
+        }
+
+        @Override
+        public void serialize(StepPayload payload, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            boolean json = generator instanceof JsonGeneratorImpl;
+            generator.writeStartObject();
+            for (int i = 0; i < payload.fieldNames.length; i++) {
+                generator.writeFieldName(payload.fieldNames[i]);
+                if (json) {
+                    generator.writeRawValue(payload.renderedValues[i]);
+                } else {
+                    provider.defaultSerializeValue(payload.values[i], generator);
+                }
+            }
+            if (payload.dynamicFields != null) {
+                for (Map.Entry<String, Object> field : payload.dynamicFields.entrySet()) {
+                    provider.defaultSerializeField(field.getKey(), field.getValue(), generator);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.trex.workflowservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenTransitionRequest {
+
+    // The token returned by the previous token-mode call
+    @NotBlank(message = "Workflow token is required")
+    private String token;
+
+    // Required for transitions and back navigation, ignored by save
+    private String currentStep;
+
+    private Map<String, Object> data;
+}
@@ -2,6 +2,7 @@ package com.trex.workflowservice.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -21,4 +22,8 @@ public class TransitionRequest {
 
     @NotNull(message = "Data is required")
     private Map<String, Object> data;
+
+    // Optional; the same key sent again (double click, client retry) returns the first response
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
 }
@@ -0,0 +1,26 @@
+package com.trex.workflowservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.trex.workflowservice.cache.OffHeapText;
+import com.trex.workflowservice.model.Vehicle;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Vehicle detail response. Serializes exactly like a {@link Vehicle}, except that
+ * extras and comments are streamed from the off-heap text store when they live there
+ * (the vehicle's own fields are then null and omitted).
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VehicleDetail {
+
+    @JsonUnwrapped
+    private final Vehicle vehicle;
+
+    private final OffHeapText extras;
+
+    private final OffHeapText comments;
+}
@@ -0,0 +1,25 @@
+package com.trex.workflowservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A token-mode step response: the step itself, plus either the token to send with the
+ * next call or, once the session has been stored, its session id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkflowTokenResponse {
+
+    @JsonUnwrapped
+    private WorkflowTransitionResponse step;
+
+    private String token;
+
+    // Set once the session is stored; continue with the session id endpoints from then on
+    private String sessionId;
+}
@@ -0,0 +1,44 @@
+package com.trex.workflowservice.event;
+
+/**
+ * Published whenever vehicle inventory changes, on the node that made the change and,
+ * via the Postgres invalidation bus, on every other node.
+ *
+ * @param vehicleId the changed vehicle, or null for bulk changes
+ * @param make         the make of the changed vehicle, or null if unknown/bulk
+ * @param previousMake the make before an update that changed it, otherwise null
+ * @param remote       true if the change was made by another instance
+ */
+public record InventoryChangedEvent(Kind kind, Long vehicleId, String make, String previousMake, boolean remote) {
+
+    public enum Kind {
+        UPSERT,
+        DELETE,
+        BULK
+    }
+
+    public static InventoryChangedEvent upsert(Long vehicleId, String make) {
+        return upsert(vehicleId, make, null);
+    }
+
+    /**
+     * An update; previousMake is the make before it, so listings under the old make are
+     * invalidated as well when it changed.
+     */
+    public static InventoryChangedEvent upsert(Long vehicleId, String make, String previousMake) {
+        boolean makeChanged = previousMake != null && !previousMake.equalsIgnoreCase(make);
+        return new InventoryChangedEvent(Kind.UPSERT, vehicleId, make, makeChanged ? previousMake : null, false);
+    }
+
+    public static InventoryChangedEvent delete(Long vehicleId) {
+        return new InventoryChangedEvent(Kind.DELETE, vehicleId, null, null, false);
+    }
+
+    public static InventoryChangedEvent bulk() {
+        return new InventoryChangedEvent(Kind.BULK, null, null, null, false);
+    }
+
+    public boolean isBulk() {
+        return kind == Kind.BULK;
+    }
+}
@@ -0,0 +1,10 @@
+package com.trex.workflowservice.event;
+
+import com.trex.workflowservice.model.SavedSearch;
+import com.trex.workflowservice.model.Vehicle;
+
+/**
+ * Published when a new or changed vehicle starts matching a buyer's saved search.
+ */
+public record SavedSearchMatchEvent(SavedSearch savedSearch, Vehicle vehicle) {
+}
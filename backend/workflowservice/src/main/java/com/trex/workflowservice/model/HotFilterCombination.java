@@ -0,0 +1,36 @@
+package com.trex.workflowservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * HotFilterCombination Entity
+ * One of the most requested normalized filter combinations for a query kind
+ * (search, filter counts, ranges), replayed on startup to warm caches.
+ */
+@Entity
+@Table(name = "hot_filter_combinations")
+@Data
+@NoArgsConstructor
+public class HotFilterCombination {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 30)
+    private String kind;
+
+    // Normalized parameters as a JSON object with sorted keys
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String params;
+
+    @Column(nullable = false)
+    private long hits;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,18 +1,27 @@
 package com.trex.workflowservice.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Stores a {@code Map<String, Object>} as a JSON document.
+ * Maps read back are mutable, since workflow definitions update them in place.
+ */
 @Converter
 @Slf4j
 public class JsonConverter implements AttributeConverter<Map<String, Object>, String> {
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // ObjectMapper is thread-safe once configured; one instance serves every converted column
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private static final TypeReference<HashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
     
     @Override
     public String convertToDatabaseColumn(Map<String, Object> attribute) {
@@ -20,7 +29,7 @@ public class JsonConverter implements AttributeConverter<Map<String, Object>, St
             return null;
         }
         try {
-            return objectMapper.writeValueAsString(attribute);
+            return OBJECT_MAPPER.writeValueAsString(attribute);
         } catch (JsonProcessingException e) {
             log.error("Error converting map to JSON", e);
             return null;
@@ -28,16 +37,15 @@ public class JsonConverter implements AttributeConverter<Map<String, Object>, St
     }
     
     @Override
-    @SuppressWarnings("unchecked")
     public Map<String, Object> convertToEntityAttribute(String dbData) {
         if (dbData == null || dbData.isEmpty()) {
-            return Map.of();
+            return new HashMap<>();
         }
         try {
-            return objectMapper.readValue(dbData, Map.class);
+            return OBJECT_MAPPER.readValue(dbData, MAP_TYPE);
         } catch (JsonProcessingException e) {
             log.error("Error converting JSON to map", e);
-            return Map.of();
+            return new HashMap<>();
         }
     }
 }
@@ -0,0 +1,92 @@
+package com.trex.workflowservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * SavedSearch Entity
+ * A buyer's stored vehicle filter; new or changed inventory is matched against it
+ * so the buyer can be told when a suitable car arrives.
+ * Filter semantics mirror VehicleRepository.findVehiclesWithFilters (null = any).
+ */
+@Entity
+@Table(name = "saved_searches")
+@Data
+@NoArgsConstructor
+public class SavedSearch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 254)
+    private String email;
+
+    @Column(length = 100)
+    private String make;
+
+    @Column(length = 100)
+    private String model;
+
+    @Column(length = 50)
+    private String province;
+
+    @Column(length = 100)
+    private String city;
+
+    private Integer minYear;
+
+    private Integer maxYear;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal maxPrice;
+
+    private Integer maxMileage;
+
+    @Column(length = 20)
+    private String fuelType;
+
+    @Column(length = 50)
+    private String bodyType;
+
+    @Column(length = 20)
+    private String transmission;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    /**
+     * Evaluates this search against a single vehicle, using the same rules as the
+     * search query: case-insensitive equality, inclusive ranges, unsold vehicles only.
+     */
+    public boolean matches(Vehicle vehicle) {
+        return vehicle.getSoldDate() == null
+            && equalsIgnoreCase(make, vehicle.getMakeName())
+            && equalsIgnoreCase(model, vehicle.getModelName())
+            && equalsIgnoreCase(province, vehicle.getProvinceName())
+            && equalsIgnoreCase(city, vehicle.getCityName())
+            && equalsIgnoreCase(fuelType, vehicle.getFuelType())
+            && equalsIgnoreCase(bodyType, vehicle.getBodyType())
+            && equalsIgnoreCase(transmission, vehicle.getTransmission())
+            && (minYear == null || (vehicle.getYear() != null && vehicle.getYear() >= minYear))
+            && (maxYear == null || (vehicle.getYear() != null && vehicle.getYear() <= maxYear))
+            && (minPrice == null || (vehicle.getPrice() != null && vehicle.getPrice().compareTo(minPrice) >= 0))
+            && (maxPrice == null || (vehicle.getPrice() != null && vehicle.getPrice().compareTo(maxPrice) <= 0))
+            && (maxMileage == null || (vehicle.getMileage() != null && vehicle.getMileage() <= maxMileage));
+    }
+
+    private static boolean equalsIgnoreCase(String filter, String value) {
+        return filter == null || filter.equalsIgnoreCase(value);
+    }
+}
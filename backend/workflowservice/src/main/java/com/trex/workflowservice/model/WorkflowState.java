@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.PartitionKey;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,7 +14,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Entity
-@Table(name = "workflow_states")
+// Range-partitioned by created_at (migration V8__partition_workflow_tables); unique
+// constraints have to include the partition key
+@Table(name = "workflow_states",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "created_at"}))
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,7 +28,7 @@ public class WorkflowState {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false)
+    @Column(name = "session_id", nullable = false)
     private String sessionId;
     
     @Column(nullable = false)
@@ -31,24 +37,61 @@ public class WorkflowState {
     @Column(nullable = false)
     private String currentStep;
     
-    @Transient
+    // Each section is its own JSONB column; with @DynamicUpdate a transition only
+    // rewrites the sections it actually changed
+    @Convert(converter = JsonConverter.class)
+    @Column(name = "user_data", columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
     private Map<String, Object> userData = new HashMap<>();
     
-    @Transient
+    @Convert(converter = JsonConverter.class)
+    @Column(columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
     private Map<String, Object> context = new HashMap<>();
     
-    @Transient
+    @Convert(converter = JsonConverter.class)
+    @Column(name = "navigation_history", columnDefinition = "jsonb")
+    @ColumnTransformer(write = "?::jsonb")
     private Map<String, Object> navigationHistory = new HashMap<>();
     
     @Enumerated(EnumType.STRING)
     private WorkflowStatus status = WorkflowStatus.IN_PROGRESS;
     
-    @CreationTimestamp
+    // Sequence of the last workflow event included in this row; later events are
+    // replayed on top of it when the session is loaded
+    @Column(name = "event_sequence", nullable = false)
+    private long eventSequence;
+    
+    // Idempotency key of the last recorded step, if the client sent one
+    @Column(name = "last_idempotency_key", length = 100)
+    private String lastIdempotencyKey;
+    
+    // Optimistic lock: concurrent writers of the same snapshot fail instead of
+    // overwriting each other
+    @Version
+    private long version;
+    
+    // Events applied in memory since the row was last written
+    @Transient
+    private int eventsSinceSnapshot;
+    
+    // Partition key: never changes, and Hibernate adds it to UPDATE/DELETE so they hit
+    // one partition. Set when the session starts rather than when the row is first
+    // written behind, so the session's events are never older than it.
+    @PartitionKey
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+    
     public enum WorkflowStatus {
         IN_PROGRESS,
         COMPLETED,
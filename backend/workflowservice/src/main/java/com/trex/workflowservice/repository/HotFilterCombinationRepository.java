@@ -0,0 +1,13 @@
+package com.trex.workflowservice.repository;
+
+import com.trex.workflowservice.model.HotFilterCombination;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HotFilterCombinationRepository extends JpaRepository<HotFilterCombination, Long> {
+
+    List<HotFilterCombination> findAllByOrderByHitsDesc();
+}
@@ -0,0 +1,15 @@
+package com.trex.workflowservice.repository;
+
+import com.trex.workflowservice.model.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    List<SavedSearch> findByActiveTrue();
+
+    List<SavedSearch> findByEmailIgnoreCaseAndActiveTrue(String email);
+}
@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -658,4 +660,20 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
         @Param("province") String province,
         @Param("city") String city
     );
-}
\ No newline at end of file
+    
+    // Feature rows for the in-memory similar-vehicle index (available vehicles only)
+    @Query("SELECT v.id, v.year, v.price, v.mileage, v.bodyType, v.fuelType, v.makeName FROM Vehicle v WHERE v.soldDate IS NULL")
+    List<Object[]> findAvailableVehicleFeatures();
+    
+    // Feature rows changed since a date, sold or not, for catching up a stored similar-vehicle index
+    @Query("SELECT v.id, v.year, v.price, v.mileage, v.bodyType, v.fuelType, v.makeName, v.soldDate FROM Vehicle v WHERE v.lastChangedDate >= :since")
+    List<Object[]> findVehicleFeaturesChangedSince(@Param("since") LocalDate since);
+    
+    // Ids of the available vehicles, for dropping deleted vehicles from a stored similar-vehicle index
+    @Query("SELECT v.id FROM Vehicle v WHERE v.soldDate IS NULL")
+    List<Long> findAvailableVehicleIds();
+    
+    // Feature rows of the given vehicles, sold or not, for applying inventory changes to the similar-vehicle index
+    @Query("SELECT v.id, v.year, v.price, v.mileage, v.bodyType, v.fuelType, v.makeName, v.soldDate FROM Vehicle v WHERE v.id IN :ids")
+    List<Object[]> findVehicleFeaturesByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,22 @@
+package com.trex.workflowservice.repository;
+
+import com.trex.workflowservice.model.WorkflowEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WorkflowEventRepository extends JpaRepository<WorkflowEvent, Long> {
+
+    // A session's events are never older than the session, so its created_at bounds the
+    // partitions to scan
+    @Query("SELECT e FROM WorkflowEvent e WHERE e.sessionId = :sessionId AND e.createdAt >= :since " +
+           "AND e.sequence > :sequence ORDER BY e.sequence")
+    List<WorkflowEvent> findTail(@Param("sessionId") String sessionId,
+                                 @Param("since") LocalDateTime since,
+                                 @Param("sequence") long sequence);
+}
@@ -1,6 +1,8 @@
 package com.trex.workflowservice.repository;
 
 import com.trex.workflowservice.model.WorkflowState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,15 +15,24 @@ import java.util.Optional;
 @Repository
 public interface WorkflowStateRepository extends JpaRepository<WorkflowState, Long> {
 
-    Optional<WorkflowState> findBySessionId(String sessionId);
+    // workflow_states is partitioned by created_at: every query bounds it from below
+    // (see WorkflowStatePartitions.activeSince) so only recent partitions are scanned
     
-    List<WorkflowState> findByWorkflowTypeAndStatus(String workflowType, WorkflowState.WorkflowStatus status);
+    @Query("SELECT ws FROM WorkflowState ws WHERE ws.sessionId = :sessionId AND ws.createdAt >= :since")
+    Optional<WorkflowState> findBySessionId(@Param("sessionId") String sessionId,
+                                            @Param("since") LocalDateTime since);
     
-    @Query("SELECT ws FROM WorkflowState ws WHERE ws.updatedAt < :cutoffTime AND ws.status = :status")
-    List<WorkflowState> findStaleWorkflows(@Param("cutoffTime") LocalDateTime cutoffTime, 
-                                          @Param("status") WorkflowState.WorkflowStatus status);
+    // A Slice, so paging doesn't run a COUNT; totals come from WorkflowStatusCounts
+    @Query("SELECT ws FROM WorkflowState ws WHERE ws.workflowType = :workflowType AND ws.status = :status " +
+           "AND ws.createdAt >= :since")
+    Slice<WorkflowState> findByWorkflowTypeAndStatus(@Param("workflowType") String workflowType,
+                                                     @Param("status") WorkflowState.WorkflowStatus status,
+                                                     @Param("since") LocalDateTime since,
+                                                     Pageable pageable);
     
-    @Query("SELECT COUNT(ws) FROM WorkflowState ws WHERE ws.workflowType = :workflowType AND ws.status = :status")
-    Long countByWorkflowTypeAndStatus(@Param("workflowType") String workflowType, 
-                                     @Param("status") WorkflowState.WorkflowStatus status);
+    @Query("SELECT ws FROM WorkflowState ws WHERE ws.updatedAt < :cutoffTime AND ws.status = :status " +
+           "AND ws.createdAt >= :since")
+    List<WorkflowState> findStaleWorkflows(@Param("cutoffTime") LocalDateTime cutoffTime, 
+                                          @Param("status") WorkflowState.WorkflowStatus status,
+                                          @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,53 @@
+package com.trex.workflowservice.scheduler;
+
+import com.trex.workflowservice.event.SavedSearchMatchEvent;
+import com.trex.workflowservice.model.SavedSearch;
+import com.trex.workflowservice.model.Vehicle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * SavedSearchNotificationListener
+ * Notifies buyers when a vehicle matching one of their saved searches arrives
+ * Runs asynchronously so inventory writes never wait on notification delivery
+ */
+@Component
+public class SavedSearchNotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SavedSearchNotificationListener.class);
+
+    @Async
+    @EventListener
+    public void onSavedSearchMatch(SavedSearchMatchEvent event) {
+        try {
+            sendMatchEmail(event.savedSearch(), event.vehicle());
+            logger.info("Saved search notification sent for saved search {}", event.savedSearch().getId());
+        } catch (Exception e) {
+            logger.error("Failed to send saved search notification for saved search {}", event.savedSearch().getId(), e);
+        }
+    }
+
+    private void sendMatchEmail(SavedSearch search, Vehicle vehicle) {
+        StringBuilder emailContent = new StringBuilder();
+        emailContent.append("A VEHICLE MATCHING YOUR SEARCH HAS ARRIVED\n");
+        emailContent.append("==========================================\n\n");
+        emailContent.append(vehicle.getYear()).append(" ")
+            .append(vehicle.getMakeName()).append(" ")
+            .append(vehicle.getModelName());
+        if (vehicle.getVariantName() != null) {
+            emailContent.append(" ").append(vehicle.getVariantName());
+        }
+        emailContent.append("\n");
+        emailContent.append("- Price: R").append(vehicle.getPrice()).append("\n");
+        emailContent.append("- Mileage: ").append(vehicle.getMileage()).append(" km\n");
+        emailContent.append("- Location: ").append(vehicle.getCityName()).append(", ")
+            .append(vehicle.getProvinceName()).append("\n\n");
+        emailContent.append("View it at /vehicles/").append(vehicle.getId()).append("\n");
+
+        // There is no outbound email service yet, so the message is only logged
+        logger.info("Saved search email for saved search {}:\n{}", search.getId(), emailContent);
+    }
+}
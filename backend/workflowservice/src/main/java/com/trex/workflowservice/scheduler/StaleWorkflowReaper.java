@@ -0,0 +1,169 @@
+package com.trex.workflowservice.scheduler;
+
+import com.trex.workflowservice.service.WorkflowStatePartitions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * StaleWorkflowReaper
+ * Marks IN_PROGRESS workflow sessions ABANDONED once nothing has happened in them for
+ * the idle timeout, and optionally deletes abandoned sessions (with their events) after
+ * a retention period.
+ *
+ * Work is done in chunks of single UPDATE/DELETE statements that pick their rows with
+ * FOR UPDATE SKIP LOCKED, so each chunk holds its row locks only for the statement and
+ * instances running the reaper at the same time take disjoint rows instead of waiting
+ * on each other. Nothing is loaded into the application.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class StaleWorkflowReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleWorkflowReaper.class);
+
+    // The snapshot row is only rewritten every few steps, so a session also counts as
+    // active if it appended an event since the cutoff. Bumping the version keeps an
+    // in-memory copy of the session from overwriting the change later. Sessions past
+    // their lifetime can't be resumed and are left to partition retention. The status
+    // counts move in the same statement.
+    private static final String ABANDON_CHUNK = """
+        WITH abandoned AS (
+            UPDATE workflow_states SET status = 'ABANDONED', updated_at = ?, version = version + 1
+            WHERE (id, created_at) IN (
+                SELECT ws.id, ws.created_at FROM workflow_states ws
+                WHERE ws.status = 'IN_PROGRESS' AND ws.updated_at < ? AND ws.created_at >= ?
+                  AND NOT EXISTS (SELECT 1 FROM workflow_events e
+                                  WHERE e.session_id = ws.session_id AND e.created_at >= ?)
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING workflow_type
+        ), counted AS (
+            INSERT INTO workflow_status_counts (workflow_type, status, count, updated_at)
+            SELECT a.workflow_type, s.status, s.sign * count(*), CURRENT_TIMESTAMP
+            FROM abandoned a CROSS JOIN (VALUES ('IN_PROGRESS', -1), ('ABANDONED', 1)) AS s(status, sign)
+            GROUP BY a.workflow_type, s.status, s.sign
+            ON CONFLICT (workflow_type, status)
+            DO UPDATE SET count = workflow_status_counts.count + EXCLUDED.count, updated_at = EXCLUDED.updated_at
+        )
+        SELECT count(*) FROM abandoned
+        """;
+
+    private static final String DELETE_CHUNK = """
+        WITH doomed AS (
+            DELETE FROM workflow_states
+            WHERE (id, created_at) IN (
+                SELECT id, created_at FROM workflow_states
+                WHERE status = 'ABANDONED' AND updated_at < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING session_id, workflow_type
+        ), events AS (
+            DELETE FROM workflow_events WHERE session_id IN (SELECT session_id FROM doomed)
+        ), counted AS (
+            INSERT INTO workflow_status_counts (workflow_type, status, count, updated_at)
+            SELECT workflow_type, 'ABANDONED', -count(*), CURRENT_TIMESTAMP FROM doomed GROUP BY workflow_type
+            ON CONFLICT (workflow_type, status)
+            DO UPDATE SET count = workflow_status_counts.count + EXCLUDED.count, updated_at = EXCLUDED.updated_at
+        )
+        SELECT count(*) FROM doomed
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkflowStatePartitions partitions;
+    private final Duration idleTimeout;
+    private final int chunkSize;
+    private final Duration maxDuration;
+    private final boolean deleteEnabled;
+    private final Duration deleteAfter;
+
+    private final Counter abandoned;
+    private final Counter deleted;
+    private final Timer chunkTimer;
+
+    public StaleWorkflowReaper(
+            JdbcTemplate jdbcTemplate,
+            WorkflowStatePartitions partitions,
+            MeterRegistry meterRegistry,
+            @Value("${workflow.reaper.idle-timeout:PT2H}") Duration idleTimeout,
+            @Value("${workflow.reaper.chunk-size:1000}") int chunkSize,
+            @Value("${workflow.reaper.max-duration:PT30S}") Duration maxDuration,
+            @Value("${workflow.reaper.delete-enabled:false}") boolean deleteEnabled,
+            @Value("${workflow.reaper.delete-after:P30D}") Duration deleteAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = partitions;
+        this.idleTimeout = idleTimeout;
+        this.chunkSize = chunkSize;
+        this.maxDuration = maxDuration;
+        this.deleteEnabled = deleteEnabled;
+        this.deleteAfter = deleteAfter;
+        this.abandoned = Counter.builder("workflow.reaper.sessions")
+            .tag("action", "abandoned")
+            .register(meterRegistry);
+        this.deleted = Counter.builder("workflow.reaper.sessions")
+            .tag("action", "deleted")
+            .register(meterRegistry);
+        this.chunkTimer = Timer.builder("workflow.reaper.chunk")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.reaper.interval-ms:60000}",
+               initialDelayString = "${workflow.reaper.interval-ms:60000}")
+    public void reap() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp cutoff = Timestamp.valueOf(now.minus(idleTimeout));
+            Timestamp updatedAt = Timestamp.valueOf(now);
+            Timestamp activeSince = Timestamp.valueOf(partitions.activeSince());
+            run("abandoned", abandoned, () ->
+                jdbcTemplate.queryForObject(ABANDON_CHUNK, Integer.class, updatedAt, cutoff, activeSince, cutoff, chunkSize));
+
+            if (deleteEnabled) {
+                Timestamp retentionCutoff = Timestamp.valueOf(now.minus(deleteAfter));
+                run("deleted", deleted, () ->
+                    jdbcTemplate.queryForObject(DELETE_CHUNK, Integer.class, retentionCutoff, chunkSize));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Stale workflow reaper failed", e);
+        }
+    }
+
+    /**
+     * Runs chunks until one comes back short or the run's time budget is spent.
+     */
+    private void run(String action, Counter counter, ChunkStatement chunk) {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long total = 0;
+        int rows;
+        do {
+            long chunkStart = System.nanoTime();
+            rows = chunk.execute();
+            chunkTimer.record(Duration.ofNanos(System.nanoTime() - chunkStart));
+            counter.increment(rows);
+            total += rows;
+        } while (rows == chunkSize && System.nanoTime() < deadline);
+
+        if (total > 0) {
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            logger.info("Workflow reaper {} {} sessions in {} ms ({} rows/s)",
+                        action, total, elapsedMs, total * 1000 / elapsedMs);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        int execute();
+    }
+}
@@ -0,0 +1,121 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.HotFilterCombination;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays the persisted hot filter combinations through {@link VehicleService} on
+ * startup, filling the result cache, the database buffer cache and the JIT profile
+ * for the hot query paths.
+ *
+ * Application runners complete before Spring Boot marks the application as accepting
+ * traffic, so the readiness probe only reports UP once this has finished (or given up
+ * after the configured maximum duration).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmupRunner implements ApplicationRunner {
+
+    private final HotFilterRecorder hotFilterRecorder;
+    private final VehicleService vehicleService;
+
+    @Value("${vehicles.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${vehicles.warmup.max-duration:PT60S}")
+    private Duration maxDuration;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        List<HotFilterCombination> combinations;
+        try {
+            combinations = hotFilterRecorder.loadPersisted();
+        } catch (RuntimeException e) {
+            log.warn("Skipping cache warm-up, hot filter combinations unavailable: {}", e.getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int replayed = 0;
+        int failed = 0;
+        for (HotFilterCombination combination : combinations) {
+            if (System.nanoTime() > deadline) {
+                log.warn("Cache warm-up stopped after {}, {} of {} combinations replayed",
+                         maxDuration, replayed, combinations.size());
+                break;
+            }
+            try {
+                Map<String, Object> params = hotFilterRecorder.parseParams(combination);
+                hotFilterRecorder.withoutRecording(() -> replay(combination.getKind(), params));
+                replayed++;
+            } catch (Exception e) {
+                failed++;
+                log.debug("Failed to replay {} combination {}: {}", combination.getKind(), combination.getParams(), e.getMessage());
+            }
+        }
+        log.info("Cache warm-up replayed {} hot filter combinations ({} failed) in {} ms",
+                 replayed, failed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void replay(String kind, Map<String, Object> params) {
+        switch (kind) {
+            case "search" -> vehicleService.searchVehicles(
+                string(params, "make"), string(params, "model"),
+                integer(params, "minYear"), integer(params, "maxYear"),
+                decimal(params, "minPrice"), decimal(params, "maxPrice"),
+                string(params, "province"), string(params, "city"), integer(params, "maxMileage"),
+                string(params, "fuelType"), string(params, "bodyType"), string(params, "transmission"),
+                integer(params, "page"), integer(params, "size"),
+                string(params, "sortBy"), string(params, "sortDir"));
+            case "filterCounts" -> vehicleService.getFilterCounts(
+                string(params, "make"), string(params, "model"),
+                integer(params, "yearMin"), integer(params, "yearMax"),
+                decimal(params, "priceMin"), decimal(params, "priceMax"),
+                integer(params, "mileageMin"), integer(params, "mileageMax"),
+                list(params, "bodyTypes"), list(params, "fuelTypes"),
+                string(params, "transmission"), string(params, "condition"),
+                string(params, "province"), string(params, "city"), list(params, "colours"));
+            case "ranges" -> vehicleService.getFilteredRanges(
+                string(params, "make"), string(params, "model"), string(params, "bodyType"),
+                string(params, "fuelType"), string(params, "province"));
+            default -> throw new IllegalArgumentException("Unknown query kind: " + kind);
+        }
+    }
+
+    private static String string(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Integer integer(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value instanceof Number number ? Integer.valueOf(number.intValue()) : null;
+    }
+
+    private static BigDecimal decimal(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> list(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value instanceof List<?> ? (List<String>) value : null;
+    }
+}
@@ -0,0 +1,211 @@
+package com.trex.workflowservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trex.workflowservice.model.HotFilterCombination;
+import com.trex.workflowservice.repository.HotFilterCombinationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often each normalized filter combination is requested and periodically
+ * persists the top N per query kind, so a fresh instance can replay them on startup
+ * (see {@link CacheWarmupRunner}).
+ *
+ * Counts start from the persisted table, so popularity carries over deploys instead of
+ * restarting from zero. Each instance adds only its new hits to the table, so instances
+ * merge their counts instead of overwriting each other's top N.
+ */
+@Component
+@Slf4j
+public class HotFilterRecorder {
+
+    // Stop tracking new combinations beyond this; the long tail never makes the top N
+    private static final int MAX_TRACKED = 10_000;
+
+    private static final TypeReference<TreeMap<String, Object>> PARAMS_TYPE = new TypeReference<>() {};
+
+    private static final String ADD_HITS = """
+        INSERT INTO hot_filter_combinations (kind, params, hits, updated_at)
+        VALUES (?, ?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (kind, md5(params))
+        DO UPDATE SET hits = hot_filter_combinations.hits + EXCLUDED.hits, updated_at = EXCLUDED.updated_at
+        """;
+
+    // Keeps the table at the top N of each kind, whichever instances the hits came from
+    private static final String PRUNE = """
+        DELETE FROM hot_filter_combinations
+        WHERE id IN (
+            SELECT id FROM (
+                SELECT id, ROW_NUMBER() OVER (PARTITION BY kind ORDER BY hits DESC) AS rank
+                FROM hot_filter_combinations
+            ) ranked
+            WHERE rank > ?
+        )
+        """;
+
+    private final HotFilterCombinationRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int topN;
+
+    private final Map<Combination, Tally> counts = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> suspended = ThreadLocal.withInitial(() -> false);
+
+    public HotFilterRecorder(
+            HotFilterCombinationRepository repository,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${vehicles.warmup.top-n:100}") int topN) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.topN = topN;
+    }
+
+    /**
+     * Records one request. Parameters are given as name/value pairs; null and blank
+     * values are dropped. Case is kept, since sort properties are case-sensitive.
+     */
+    public void record(String kind, Object... namesAndValues) {
+        if (suspended.get()) {
+            return;
+        }
+        TreeMap<String, Object> params = new TreeMap<>();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            Object value = normalize(namesAndValues[i + 1]);
+            if (value != null) {
+                params.put((String) namesAndValues[i], value);
+            }
+        }
+        try {
+            Combination combination = new Combination(kind, objectMapper.writeValueAsString(params));
+            Tally tally = counts.get(combination);
+            if (tally == null) {
+                if (counts.size() >= MAX_TRACKED) {
+                    return;
+                }
+                tally = counts.computeIfAbsent(combination, c -> new Tally());
+            }
+            tally.hits.increment();
+        } catch (JsonProcessingException e) {
+            log.debug("Could not record filter combination for {}: {}", kind, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the action without recording, so replayed requests don't count as traffic.
+     */
+    public void withoutRecording(Runnable action) {
+        suspended.set(true);
+        try {
+            action.run();
+        } finally {
+            suspended.remove();
+        }
+    }
+
+    /**
+     * Loads the persisted combinations, most requested first, and seeds the counters
+     * with them. Seeded hits count as already flushed.
+     */
+    public List<HotFilterCombination> loadPersisted() {
+        List<HotFilterCombination> persisted = repository.findAllByOrderByHitsDesc();
+        for (HotFilterCombination combination : persisted) {
+            Tally tally = counts.computeIfAbsent(
+                new Combination(combination.getKind(), combination.getParams()), c -> new Tally());
+            synchronized (this) {
+                tally.hits.add(combination.getHits());
+                tally.flushed += combination.getHits();
+            }
+        }
+        return persisted;
+    }
+
+    public Map<String, Object> parseParams(HotFilterCombination combination) throws JsonProcessingException {
+        return objectMapper.readValue(combination.getParams(), PARAMS_TYPE);
+    }
+
+    /**
+     * Adds the hits since the last flush of this instance's top N combinations of each
+     * kind to the persisted table, then trims the table to the top N of each kind.
+     */
+    @Scheduled(initialDelayString = "${vehicles.warmup.flush-interval-ms:300000}",
+               fixedDelayString = "${vehicles.warmup.flush-interval-ms:300000}")
+    public synchronized void flush() {
+        Map<String, List<Map.Entry<Combination, Tally>>> byKind = new TreeMap<>();
+        counts.forEach((combination, tally) -> byKind
+            .computeIfAbsent(combination.kind(), k -> new ArrayList<>())
+            .add(Map.entry(combination, tally)));
+
+        List<Map.Entry<Tally, Long>> flushed = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (List<Map.Entry<Combination, Tally>> entries : byKind.values()) {
+            entries.sort(Comparator.comparingLong(
+                (Map.Entry<Combination, Tally> entry) -> entry.getValue().hits.sum()).reversed());
+            for (Map.Entry<Combination, Tally> entry : entries.subList(0, Math.min(topN, entries.size()))) {
+                long pending = entry.getValue().hits.sum() - entry.getValue().flushed;
+                if (pending > 0) {
+                    flushed.add(Map.entry(entry.getValue(), pending));
+                    rows.add(new Object[] {entry.getKey().kind(), entry.getKey().params(), pending});
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(ADD_HITS, rows);
+        } catch (RuntimeException e) {
+            log.warn("Could not persist {} hot filter combinations: {}", rows.size(), e.getMessage());
+            return;
+        }
+        for (Map.Entry<Tally, Long> entry : flushed) {
+            entry.getKey().flushed += entry.getValue();
+        }
+
+        int pruned = jdbcTemplate.update(PRUNE, topN);
+        log.info("Persisted {} hot filter combinations from {} tracked, pruned {}", rows.size(), counts.size(), pruned);
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof String string) {
+            return string.isBlank() ? null : string.trim();
+        }
+        if (value instanceof BigDecimal decimal) {
+            // Kept as a string so it round-trips without binary floating point
+            return decimal.stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Collection<?> values) {
+            if (values.isEmpty()) {
+                return null;
+            }
+            return values.stream().map(v -> String.valueOf(v).trim()).sorted().toList();
+        }
+        return value;
+    }
+
+    private record Combination(String kind, String params) {
+    }
+
+    private static final class Tally {
+        final LongAdder hits = new LongAdder();
+        // Only touched under the recorder's lock
+        long flushed;
+    }
+}
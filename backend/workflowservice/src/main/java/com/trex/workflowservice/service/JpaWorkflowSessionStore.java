@@ -0,0 +1,68 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.WorkflowEvent;
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.repository.WorkflowEventRepository;
+import com.trex.workflowservice.repository.WorkflowStateRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Default session store: reads and writes workflow_states directly, so requests of one
+ * session may land on any instance (no sticky sessions needed).
+ *
+ * States are handed out detached. With Open Session In View the loaded row would stay
+ * managed for the whole request: every event commit would flush the state the engine
+ * just changed, rewriting the snapshot on each step, and a retry after a conflict would
+ * get the same already-advanced instance back instead of a fresh read. The row is only
+ * written by {@link #save}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.session-store.type", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaWorkflowSessionStore implements WorkflowSessionStore {
+
+    private final WorkflowStateRepository stateRepository;
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowEventLog eventLog;
+    private final WorkflowStatePartitions partitions;
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<WorkflowState> find(String sessionId) {
+        return stateRepository.findBySessionId(sessionId, partitions.activeSince())
+                .map(this::detached)
+                .map(eventLog::replay);
+    }
+
+    @Override
+    public void save(WorkflowState state) {
+        // Merged into a managed copy for a detached state; the version it was written
+        // with is the one the next save is checked against
+        WorkflowState saved = stateRepository.save(state);
+        state.setId(saved.getId());
+        state.setVersion(saved.getVersion());
+        detached(saved);
+    }
+
+    @Override
+    public void append(WorkflowState state, WorkflowEvent event) {
+        eventRepository.save(event);
+    }
+
+    @Override
+    public void appendAll(WorkflowState state, List<WorkflowEvent> events) {
+        // saveAll runs in one transaction
+        eventRepository.saveAll(events);
+    }
+
+    private WorkflowState detached(WorkflowState state) {
+        entityManager.detach(state);
+        return state;
+    }
+}
@@ -0,0 +1,177 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.SavedSearch;
+import com.trex.workflowservice.model.Vehicle;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse index over saved-search predicates (a percolator).
+ *
+ * Searches are bucketed by their make/model/province equality filters, with "any"
+ * stored as a wildcard. A vehicle therefore only visits the eight buckets its own
+ * make/model/province can fall into. Inside a bucket, searches are ordered by their
+ * minimum price so the price lower bound prunes candidates before the remaining
+ * predicates are checked one by one.
+ */
+class SavedSearchIndex {
+
+    private static final String ANY = "*";
+
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Map<Long, String> bucketKeyBySearchId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void add(SavedSearch search) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(search.getId());
+            String key = bucketKey(search.getMake(), search.getModel(), search.getProvince());
+            buckets.computeIfAbsent(key, k -> new Bucket()).add(search);
+            bucketKeyBySearchId.put(search.getId(), key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long searchId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(searchId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            buckets.clear();
+            bucketKeyBySearchId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return bucketKeyBySearchId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every indexed search that matches the vehicle.
+     */
+    List<SavedSearch> match(Vehicle vehicle) {
+        List<SavedSearch> matches = new ArrayList<>();
+        if (vehicle.getSoldDate() != null) {
+            return matches;
+        }
+
+        String[] makes = candidates(vehicle.getMakeName());
+        String[] models = candidates(vehicle.getModelName());
+        String[] provinces = candidates(vehicle.getProvinceName());
+
+        lock.readLock().lock();
+        try {
+            for (String make : makes) {
+                for (String model : models) {
+                    for (String province : provinces) {
+                        Bucket bucket = buckets.get(make + '|' + model + '|' + province);
+                        if (bucket != null) {
+                            bucket.collectMatches(vehicle, matches);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    private void removeUnlocked(Long searchId) {
+        String key = bucketKeyBySearchId.remove(searchId);
+        if (key == null) {
+            return;
+        }
+        Bucket bucket = buckets.get(key);
+        bucket.remove(searchId);
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    private static String bucketKey(String make, String model, String province) {
+        return normalize(make) + '|' + normalize(model) + '|' + normalize(province);
+    }
+
+    // A vehicle without the value only falls into the wildcard bucket; listing ANY twice
+    // would visit that bucket twice and report its matches twice
+    private static String[] candidates(String value) {
+        String normalized = normalize(value);
+        return normalized.equals(ANY) ? new String[] {ANY} : new String[] {normalized, ANY};
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? ANY : value.trim().toLowerCase();
+    }
+
+    /**
+     * Searches sharing the same make/model/province filters, ordered by minimum price.
+     */
+    private static final class Bucket {
+        private final NavigableMap<BigDecimal, List<SavedSearch>> byMinPrice = new TreeMap<>();
+        private final List<SavedSearch> withoutMinPrice = new ArrayList<>();
+
+        void add(SavedSearch search) {
+            if (search.getMinPrice() == null) {
+                withoutMinPrice.add(search);
+            } else {
+                byMinPrice.computeIfAbsent(search.getMinPrice(), k -> new ArrayList<>()).add(search);
+            }
+        }
+
+        void remove(Long searchId) {
+            withoutMinPrice.removeIf(search -> search.getId().equals(searchId));
+            byMinPrice.values().removeIf(searches -> {
+                searches.removeIf(search -> search.getId().equals(searchId));
+                return searches.isEmpty();
+            });
+        }
+
+        boolean isEmpty() {
+            return withoutMinPrice.isEmpty() && byMinPrice.isEmpty();
+        }
+
+        void collectMatches(Vehicle vehicle, List<SavedSearch> matches) {
+            for (SavedSearch search : withoutMinPrice) {
+                if (search.matches(vehicle)) {
+                    matches.add(search);
+                }
+            }
+            if (vehicle.getPrice() == null) {
+                return;
+            }
+            // Only searches whose minimum price is at or below the vehicle price can match
+            for (List<SavedSearch> searches : byMinPrice.headMap(vehicle.getPrice(), true).values()) {
+                for (SavedSearch search : searches) {
+                    if (search.matches(vehicle)) {
+                        matches.add(search);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.dto.SavedSearchRequest;
+import com.trex.workflowservice.event.SavedSearchMatchEvent;
+import com.trex.workflowservice.model.SavedSearch;
+import com.trex.workflowservice.model.Vehicle;
+import com.trex.workflowservice.repository.SavedSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores buyers' saved searches and matches new or changed inventory against them
+ * through an in-memory reverse index, instead of re-running every saved query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchService {
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SavedSearchIndex index = new SavedSearchIndex();
+    private volatile boolean indexLoaded;
+
+    public SavedSearch createSavedSearch(SavedSearchRequest request) {
+        SavedSearch search = new SavedSearch();
+        search.setEmail(request.getEmail().trim());
+        search.setMake(request.getMake());
+        search.setModel(request.getModel());
+        search.setProvince(request.getProvince());
+        search.setCity(request.getCity());
+        search.setMinYear(request.getMinYear());
+        search.setMaxYear(request.getMaxYear());
+        search.setMinPrice(request.getMinPrice());
+        search.setMaxPrice(request.getMaxPrice());
+        search.setMaxMileage(request.getMaxMileage());
+        search.setFuelType(request.getFuelType());
+        search.setBodyType(request.getBodyType());
+        search.setTransmission(request.getTransmission());
+
+        SavedSearch saved = savedSearchRepository.save(search);
+        ensureIndexLoaded();
+        index.add(saved);
+        log.info("Saved search {} created for {}", saved.getId(), saved.getEmail());
+        return saved;
+    }
+
+    public List<SavedSearch> getSavedSearches(String email) {
+        return savedSearchRepository.findByEmailIgnoreCaseAndActiveTrue(email);
+    }
+
+    public boolean deactivateSavedSearch(Long id) {
+        Optional<SavedSearch> search = savedSearchRepository.findById(id);
+        if (search.isEmpty() || !search.get().isActive()) {
+            return false;
+        }
+        search.get().setActive(false);
+        savedSearchRepository.save(search.get());
+        index.remove(id);
+        log.info("Saved search {} deactivated", id);
+        return true;
+    }
+
+    /**
+     * Matches a saved vehicle against all saved searches and publishes a
+     * {@link SavedSearchMatchEvent} for every search it newly satisfies.
+     *
+     * @param previous the vehicle as it was before the change, or null for new inventory
+     */
+    public void onVehicleSaved(Vehicle previous, Vehicle saved) {
+        ensureIndexLoaded();
+
+        List<SavedSearch> matches = index.match(saved);
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        // Searches that already matched the old version were notified back then
+        Set<Long> alreadyMatched = new HashSet<>();
+        if (previous != null) {
+            for (SavedSearch search : index.match(previous)) {
+                alreadyMatched.add(search.getId());
+            }
+        }
+
+        int published = 0;
+        for (SavedSearch search : matches) {
+            if (!alreadyMatched.contains(search.getId())) {
+                eventPublisher.publishEvent(new SavedSearchMatchEvent(search, saved));
+                published++;
+            }
+        }
+        log.info("Vehicle {} matched {} saved searches ({} new)", saved.getId(), matches.size(), published);
+    }
+
+    private void ensureIndexLoaded() {
+        if (indexLoaded) {
+            return;
+        }
+        synchronized (index) {
+            if (!indexLoaded) {
+                index.clear();
+                savedSearchRepository.findByActiveTrue().forEach(index::add);
+                indexLoaded = true;
+                log.info("Saved-search index loaded with {} searches", index.size());
+            }
+        }
+    }
+}
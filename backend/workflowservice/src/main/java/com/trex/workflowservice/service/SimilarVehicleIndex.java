@@ -0,0 +1,548 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.event.InventoryChangedEvent;
+import com.trex.workflowservice.model.Vehicle;
+import com.trex.workflowservice.repository.VehicleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory feature index backing the "similar vehicles" rail.
+ *
+ * Every available vehicle is reduced to quantized year, price (log scale) and mileage
+ * columns plus dictionary codes for body type, fuel type and make. Queries are a
+ * brute-force scan over the primitive columns, which keeps the inner loop branch-light
+ * and lets the JIT vectorise it; for a few thousand cars this is well under a millisecond.
+ * The index is immutable once built and swapped atomically on change. Vehicles named in
+ * inventory change events (local or from other nodes) are re-read by id and applied as a
+ * delta shortly after; only bulk changes, whose vehicles are unknown, and a daily
+ * rebuild that re-derives the normalization bounds read the whole table.
+ *
+ * The index is also written to local disk periodically (see {@link SimilarVehicleIndexFile}).
+ * It is loaded before the application accepts traffic: a recent enough file is
+ * memory-mapped instead of reading the whole vehicles table, and only the vehicles
+ * changed since it was built are fetched on top.
+ */
+@Component
+public class SimilarVehicleIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarVehicleIndex.class);
+
+    // Quantization range for numeric features (0..SCALE)
+    static final int SCALE = 1023;
+    static final int MISSING = SCALE / 2;
+
+    // Squared-distance weights and categorical mismatch penalties, in quantized units
+    private static final int YEAR_WEIGHT = 1;
+    private static final int PRICE_WEIGHT = 2;
+    private static final int MILEAGE_WEIGHT = 1;
+    private static final int BODY_TYPE_PENALTY = square(SCALE * 35 / 100);
+    private static final int FUEL_TYPE_PENALTY = square(SCALE * 25 / 100);
+    private static final int MAKE_PENALTY = square(SCALE * 20 / 100);
+
+    // More changed vehicles than this at once are cheaper to pick up with a rebuild
+    private static final int MAX_DELTA_IDS = 5_000;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Value("${vehicles.similar.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${vehicles.similar.snapshot.path:${java.io.tmpdir}/trex/similar-vehicles.idx}")
+    private Path snapshotPath;
+
+    @Value("${vehicles.similar.snapshot.max-age:P2D}")
+    private Duration snapshotMaxAge;
+
+    private volatile Snapshot snapshot;
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuildNeeded;
+    private volatile Snapshot lastWritten;
+
+    /**
+     * Loads the index on startup, so the first request does not pay for it and a
+     * restarted fleet does not scan the table on first use.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            currentSnapshot();
+        } catch (RuntimeException e) {
+            logger.warn("Similar-vehicle index not loaded on startup, loading on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the ids of up to {@code limit} available vehicles closest to the given one,
+     * nearest first. The vehicle itself is never part of the result.
+     */
+    public List<Long> findSimilar(Vehicle vehicle, int limit) {
+        Snapshot current = currentSnapshot();
+        if (current.size == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        int year = current.quantizeYear(vehicle.getYear());
+        int price = current.quantizePrice(vehicle.getPrice());
+        int mileage = current.quantizeMileage(vehicle.getMileage());
+        int bodyType = current.bodyTypes.codeOf(vehicle.getBodyType());
+        int fuelType = current.fuelTypes.codeOf(vehicle.getFuelType());
+        int make = current.makes.codeOf(vehicle.getMakeName());
+
+        int[] distances = new int[current.size];
+        current.scan(year, price, mileage, bodyType, fuelType, make, distances);
+
+        // Bounded max-heap on distance keeps the k best candidates
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1,
+            (a, b) -> Integer.compare(distances[b], distances[a]));
+        long selfId = vehicle.getId() != null ? vehicle.getId() : Long.MIN_VALUE;
+        for (int i = current.live.nextSetBit(0); i >= 0; i = current.live.nextSetBit(i + 1)) {
+            if (current.ids[i] == selfId) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (distances[i] < distances[best.peek()]) {
+                best.poll();
+                best.add(i);
+            }
+        }
+
+        Long[] result = new Long[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = current.ids[best.poll()];
+        }
+        return List.of(result);
+    }
+
+    public int size() {
+        return currentSnapshot().live.cardinality();
+    }
+
+    /**
+     * Rebuilds the index from the vehicles table. Deltas keep the normalization bounds
+     * of the last rebuild, so this runs daily to re-derive them.
+     */
+    @Scheduled(initialDelayString = "${vehicles.similar.refresh-interval-ms:86400000}",
+               fixedDelayString = "${vehicles.similar.refresh-interval-ms:86400000}")
+    public synchronized void refresh() {
+        // Changes from here on may be missed by the read and stay pending
+        rebuildNeeded = false;
+        changedIds.clear();
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = vehicleRepository.findAvailableVehicleFeatures();
+        snapshot = Snapshot.build(rows, today);
+        logger.info("Similar-vehicle index rebuilt with {} vehicles in {} ms",
+                   rows.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies the vehicles changed since the last run: re-reads them by id, hides their
+     * old rows and appends the ones still available.
+     */
+    @Scheduled(fixedDelayString = "${vehicles.similar.dirty-check-interval-ms:10000}")
+    public synchronized void applyChanges() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // Not loaded yet; the first load reads the current rows
+        }
+        if (rebuildNeeded || changedIds.size() > MAX_DELTA_IDS) {
+            refresh();
+            return;
+        }
+        if (changedIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(changedIds);
+        changedIds.removeAll(ids);
+        List<Object[]> rows;
+        try {
+            rows = vehicleRepository.findVehicleFeaturesByIdIn(ids);
+        } catch (RuntimeException e) {
+            changedIds.addAll(ids);
+            logger.warn("Could not read {} changed vehicles for the similar-vehicle index: {}", ids.size(), e.getMessage());
+            return;
+        }
+        Snapshot updated = current.withChanges(ids, rows, current.builtOn);
+        // Hidden rows still cost scan time; drop them once they are a quarter of the index
+        snapshot = updated.size - updated.live.cardinality() > updated.size / 4 ? updated.compact() : updated;
+        logger.debug("Applied {} changed vehicles to the similar-vehicle index", ids.size());
+    }
+
+    /**
+     * Writes the current index to local disk if it changed since the last write.
+     */
+    @Scheduled(initialDelayString = "${vehicles.similar.snapshot.write-interval-ms:600000}",
+               fixedDelayString = "${vehicles.similar.snapshot.write-interval-ms:600000}")
+    public void writeSnapshot() {
+        Snapshot current = snapshot;
+        if (!snapshotEnabled || current == null || current == lastWritten) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            SimilarVehicleIndexFile.write(current, snapshotPath);
+            lastWritten = current;
+            logger.info("Similar-vehicle index written to {} in {} ms",
+                       snapshotPath, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.warn("Failed to write similar-vehicle index to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.isBulk() || event.vehicleId() == null) {
+            rebuildNeeded = true;
+        } else {
+            changedIds.add(event.vehicleId());
+        }
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null && !loadFromDisk()) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Loads the stored index, applies the vehicles changed since it was built and hides
+     * the ones no longer available. Returns false if there is no usable file, in which
+     * case the caller rebuilds.
+     */
+    private boolean loadFromDisk() {
+        if (!snapshotEnabled || !Files.isRegularFile(snapshotPath)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            Snapshot stored = SimilarVehicleIndexFile.read(snapshotPath);
+            if (stored.builtOn.isBefore(LocalDate.now().minusDays(Math.max(1, snapshotMaxAge.toDays())))) {
+                logger.info("Stored similar-vehicle index from {} is too old, rebuilding", stored.builtOn);
+                return false;
+            }
+            // lastChangedDate has day precision; re-reading the previous day as well covers
+            // time zone differences between this node and the database
+            LocalDate today = LocalDate.now();
+            List<Object[]> changes = vehicleRepository.findVehicleFeaturesChangedSince(stored.builtOn.minusDays(1));
+            Snapshot caughtUp = stored.withChanges(changes, today);
+            // A deleted vehicle leaves no changed row behind; compare ids with the table instead
+            List<Long> gone = caughtUp.liveIdsNotIn(new HashSet<>(vehicleRepository.findAvailableVehicleIds()));
+            snapshot = gone.isEmpty() ? caughtUp : caughtUp.withChanges(gone, List.of(), today);
+            logger.info("Similar-vehicle index loaded from {} ({} vehicles) plus {} changed rows, {} removed, in {} ms",
+                       snapshotPath, stored.size, changes.size(), gone.size(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable similar-vehicle index at {}: {}", snapshotPath, e.getMessage());
+            return false;
+        }
+    }
+
+    private static int square(int value) {
+        return value * value;
+    }
+
+    /**
+     * Maps category strings (case-insensitive) to dense integer codes.
+     * Code 0 is reserved for unknown/missing values.
+     */
+    static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        Dictionary() {
+            values.add(null);
+        }
+
+        int add(String value) {
+            if (value == null || value.isBlank()) {
+                return 0;
+            }
+            return codes.computeIfAbsent(value.trim().toLowerCase(), key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        int codeOf(String value) {
+            if (value == null || value.isBlank()) {
+                return 0;
+            }
+            return codes.getOrDefault(value.trim().toLowerCase(), 0);
+        }
+
+        /**
+         * Values in code order, starting at code 1.
+         */
+        List<String> values() {
+            return values.subList(1, values.size());
+        }
+
+        Dictionary copy() {
+            Dictionary copy = new Dictionary();
+            values().forEach(copy::add);
+            return copy;
+        }
+    }
+
+    /**
+     * Immutable, column-oriented view of the indexed vehicles. Rows are never removed in
+     * place; a cleared bit in {@code live} hides sold or superseded rows until the next
+     * full rebuild compacts them away.
+     */
+    static final class Snapshot {
+        final int size;
+        final long[] ids;
+        final short[] years;
+        final short[] prices;
+        final short[] mileages;
+        final int[] bodyTypeCodes;
+        final int[] fuelTypeCodes;
+        final int[] makeCodes;
+        final BitSet live;
+        final Dictionary bodyTypes;
+        final Dictionary fuelTypes;
+        final Dictionary makes;
+        final int minYear;
+        final int maxYear;
+        final double minLogPrice;
+        final double maxLogPrice;
+        final int maxMileage;
+        // Day the underlying rows were read; delta catch-up starts from here
+        final LocalDate builtOn;
+
+        Snapshot(int size, long[] ids, int minYear, int maxYear, double minLogPrice, double maxLogPrice,
+                 int maxMileage, Dictionary bodyTypes, Dictionary fuelTypes, Dictionary makes, LocalDate builtOn) {
+            this.size = size;
+            this.ids = ids;
+            this.years = new short[size];
+            this.prices = new short[size];
+            this.mileages = new short[size];
+            this.bodyTypeCodes = new int[size];
+            this.fuelTypeCodes = new int[size];
+            this.makeCodes = new int[size];
+            this.live = new BitSet(size);
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            this.minLogPrice = minLogPrice;
+            this.maxLogPrice = maxLogPrice;
+            this.maxMileage = maxMileage;
+            this.bodyTypes = bodyTypes;
+            this.fuelTypes = fuelTypes;
+            this.makes = makes;
+            this.builtOn = builtOn;
+        }
+
+        static Snapshot build(List<Object[]> rows, LocalDate builtOn) {
+            int minYear = Integer.MAX_VALUE;
+            int maxYear = Integer.MIN_VALUE;
+            double minLogPrice = Double.MAX_VALUE;
+            double maxLogPrice = -Double.MAX_VALUE;
+            int maxMileage = 0;
+            for (Object[] row : rows) {
+                if (row[1] != null) {
+                    int year = ((Number) row[1]).intValue();
+                    minYear = Math.min(minYear, year);
+                    maxYear = Math.max(maxYear, year);
+                }
+                if (row[2] != null && ((Number) row[2]).doubleValue() > 0) {
+                    double logPrice = Math.log(((Number) row[2]).doubleValue());
+                    minLogPrice = Math.min(minLogPrice, logPrice);
+                    maxLogPrice = Math.max(maxLogPrice, logPrice);
+                }
+                if (row[3] != null) {
+                    maxMileage = Math.max(maxMileage, ((Number) row[3]).intValue());
+                }
+            }
+
+            long[] ids = new long[rows.size()];
+            Snapshot snapshot = new Snapshot(rows.size(), ids, minYear, maxYear, minLogPrice, maxLogPrice,
+                                             maxMileage, new Dictionary(), new Dictionary(), new Dictionary(), builtOn);
+            for (int i = 0; i < rows.size(); i++) {
+                snapshot.setRow(i, rows.get(i));
+            }
+            return snapshot;
+        }
+
+        /**
+         * Returns a copy with the given feature rows applied: changed vehicles are appended
+         * and their old rows hidden, sold ones only hidden. Normalization bounds are kept,
+         * so values outside them are clamped until the next full rebuild.
+         */
+        Snapshot withChanges(List<Object[]> rows, LocalDate builtOn) {
+            return withChanges(rows.stream().map(row -> ((Number) row[0]).longValue()).toList(), rows, builtOn);
+        }
+
+        /**
+         * As {@link #withChanges(List, LocalDate)}, also hiding the changed vehicles that
+         * have no row any more (deleted).
+         */
+        Snapshot withChanges(Collection<Long> changedIds, List<Object[]> rows, LocalDate builtOn) {
+            int newSize = size + rows.size();
+            Snapshot copy = new Snapshot(newSize, Arrays.copyOf(ids, newSize), minYear, maxYear,
+                                         minLogPrice, maxLogPrice, maxMileage,
+                                         bodyTypes.copy(), fuelTypes.copy(), makes.copy(), builtOn);
+            System.arraycopy(years, 0, copy.years, 0, size);
+            System.arraycopy(prices, 0, copy.prices, 0, size);
+            System.arraycopy(mileages, 0, copy.mileages, 0, size);
+            System.arraycopy(bodyTypeCodes, 0, copy.bodyTypeCodes, 0, size);
+            System.arraycopy(fuelTypeCodes, 0, copy.fuelTypeCodes, 0, size);
+            System.arraycopy(makeCodes, 0, copy.makeCodes, 0, size);
+            copy.live.or(live);
+
+            Map<Long, Integer> rowById = new HashMap<>();
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                rowById.put(ids[i], i);
+            }
+            for (Long id : changedIds) {
+                Integer existing = rowById.remove(id);
+                if (existing != null) {
+                    copy.live.clear(existing);
+                }
+            }
+            int next = size;
+            for (Object[] row : rows) {
+                if (row[7] == null) {
+                    copy.setRow(next, row);
+                    rowById.put(copy.ids[next], next);
+                    next++;
+                }
+            }
+            return next == newSize ? copy : copy.truncate(next);
+        }
+
+        List<Long> liveIdsNotIn(Set<Long> keep) {
+            List<Long> missing = new ArrayList<>();
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                if (!keep.contains(ids[i])) {
+                    missing.add(ids[i]);
+                }
+            }
+            return missing;
+        }
+
+        private Snapshot truncate(int newSize) {
+            Snapshot truncated = new Snapshot(newSize, Arrays.copyOf(ids, newSize), minYear, maxYear,
+                                              minLogPrice, maxLogPrice, maxMileage,
+                                              bodyTypes, fuelTypes, makes, builtOn);
+            System.arraycopy(years, 0, truncated.years, 0, newSize);
+            System.arraycopy(prices, 0, truncated.prices, 0, newSize);
+            System.arraycopy(mileages, 0, truncated.mileages, 0, newSize);
+            System.arraycopy(bodyTypeCodes, 0, truncated.bodyTypeCodes, 0, newSize);
+            System.arraycopy(fuelTypeCodes, 0, truncated.fuelTypeCodes, 0, newSize);
+            System.arraycopy(makeCodes, 0, truncated.makeCodes, 0, newSize);
+            truncated.live.or(live);
+            return truncated;
+        }
+
+        /**
+         * Returns a copy without the hidden rows.
+         */
+        Snapshot compact() {
+            int liveCount = live.cardinality();
+            Snapshot compacted = new Snapshot(liveCount, new long[liveCount], minYear, maxYear,
+                                              minLogPrice, maxLogPrice, maxMileage,
+                                              bodyTypes, fuelTypes, makes, builtOn);
+            int j = 0;
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1), j++) {
+                compacted.ids[j] = ids[i];
+                compacted.years[j] = years[i];
+                compacted.prices[j] = prices[i];
+                compacted.mileages[j] = mileages[i];
+                compacted.bodyTypeCodes[j] = bodyTypeCodes[i];
+                compacted.fuelTypeCodes[j] = fuelTypeCodes[i];
+                compacted.makeCodes[j] = makeCodes[i];
+            }
+            compacted.live.set(0, liveCount);
+            return compacted;
+        }
+
+        private void setRow(int i, Object[] row) {
+            ids[i] = ((Number) row[0]).longValue();
+            years[i] = (short) quantizeYear(row[1] != null ? ((Number) row[1]).intValue() : null);
+            prices[i] = (short) quantizePrice(row[2] != null ? new BigDecimal(row[2].toString()) : null);
+            mileages[i] = (short) quantizeMileage(row[3] != null ? ((Number) row[3]).intValue() : null);
+            bodyTypeCodes[i] = bodyTypes.add((String) row[4]);
+            fuelTypeCodes[i] = fuelTypes.add((String) row[5]);
+            makeCodes[i] = makes.add((String) row[6]);
+            live.set(i);
+        }
+
+        int quantizeYear(Integer year) {
+            if (year == null || maxYear <= minYear) {
+                return MISSING;
+            }
+            return clamp((int) ((long) (year - minYear) * SCALE / (maxYear - minYear)));
+        }
+
+        int quantizePrice(BigDecimal price) {
+            if (price == null || price.signum() <= 0 || maxLogPrice <= minLogPrice) {
+                return MISSING;
+            }
+            double normalized = (Math.log(price.doubleValue()) - minLogPrice) / (maxLogPrice - minLogPrice);
+            return clamp((int) Math.round(normalized * SCALE));
+        }
+
+        int quantizeMileage(Integer mileage) {
+            if (mileage == null || maxMileage <= 0) {
+                return MISSING;
+            }
+            return clamp((int) ((long) mileage * SCALE / maxMileage));
+        }
+
+        /**
+         * Computes the weighted squared distance from the query to every indexed vehicle.
+         */
+        void scan(int year, int price, int mileage, int bodyType, int fuelType, int make, int[] out) {
+            for (int i = 0; i < size; i++) {
+                int dy = years[i] - year;
+                int dp = prices[i] - price;
+                int dm = mileages[i] - mileage;
+                int distance = YEAR_WEIGHT * dy * dy + PRICE_WEIGHT * dp * dp + MILEAGE_WEIGHT * dm * dm;
+                distance += bodyTypeCodes[i] != bodyType ? BODY_TYPE_PENALTY : 0;
+                distance += fuelTypeCodes[i] != fuelType ? FUEL_TYPE_PENALTY : 0;
+                distance += makeCodes[i] != make ? MAKE_PENALTY : 0;
+                out[i] = distance;
+            }
+        }
+
+        private static int clamp(int value) {
+            return Math.max(0, Math.min(SCALE, value));
+        }
+    }
+}
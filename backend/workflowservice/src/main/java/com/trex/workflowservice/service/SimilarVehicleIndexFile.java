@@ -0,0 +1,210 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.service.SimilarVehicleIndex.Dictionary;
+import com.trex.workflowservice.service.SimilarVehicleIndex.Snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary on-disk format of a {@link Snapshot}.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int    magic "TRXS"
+ *   int    format version
+ *   long   builtOn (epoch day)
+ *   int    row count
+ *   int    minYear, int maxYear, double minLogPrice, double maxLogPrice, int maxMileage
+ *   3x     dictionary: int count, then per value int length + UTF-8 bytes (body, fuel, make)
+ *   long[] ids, short[] years, short[] prices, short[] mileages
+ *   int[]  body type codes, int[] fuel type codes, int[] make codes
+ *   int    live bitmap word count, long[] live bitmap words
+ *   long   CRC32 of everything above
+ * </pre>
+ * The version is bumped whenever the layout or the quantization changes; files with
+ * another version are ignored and the index is rebuilt from the database.
+ */
+final class SimilarVehicleIndexFile {
+
+    static final int MAGIC = 0x54525853; // "TRXS"
+    static final int VERSION = 1;
+
+    private SimilarVehicleIndexFile() {
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it into place, so readers never
+     * see a partially written file.
+     */
+    static void write(Snapshot snapshot, Path path) throws IOException {
+        List<byte[]> bodyTypes = encode(snapshot.bodyTypes);
+        List<byte[]> fuelTypes = encode(snapshot.fuelTypes);
+        List<byte[]> makes = encode(snapshot.makes);
+        long[] liveWords = snapshot.live.toLongArray();
+
+        int length = 4 + 4 + 8 + 4 + 4 + 4 + 8 + 8 + 4
+            + dictionaryLength(bodyTypes) + dictionaryLength(fuelTypes) + dictionaryLength(makes)
+            + snapshot.size * (8 + 2 + 2 + 2 + 4 + 4 + 4)
+            + 4 + liveWords.length * 8
+            + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(snapshot.builtOn.toEpochDay()).putInt(snapshot.size);
+        buffer.putInt(snapshot.minYear).putInt(snapshot.maxYear)
+              .putDouble(snapshot.minLogPrice).putDouble(snapshot.maxLogPrice)
+              .putInt(snapshot.maxMileage);
+        putDictionary(buffer, bodyTypes);
+        putDictionary(buffer, fuelTypes);
+        putDictionary(buffer, makes);
+
+        buffer.asLongBuffer().put(snapshot.ids);
+        buffer.position(buffer.position() + snapshot.size * 8);
+        putShorts(buffer, snapshot.years);
+        putShorts(buffer, snapshot.prices);
+        putShorts(buffer, snapshot.mileages);
+        putInts(buffer, snapshot.bodyTypeCodes);
+        putInts(buffer, snapshot.fuelTypeCodes);
+        putInts(buffer, snapshot.makeCodes);
+        buffer.putInt(liveWords.length);
+        buffer.asLongBuffer().put(liveWords);
+        buffer.position(buffer.position() + liveWords.length * 8);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps the file and bulk-copies its columns into a new snapshot.
+     *
+     * @throws IOException if the file is unreadable, of another version or corrupt
+     */
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < 16 || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("unexpected file size " + fileSize);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) fileSize - 8));
+            if (crc.getValue() != buffer.getLong((int) fileSize - 8)) {
+                throw new IOException("checksum mismatch");
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a similar-vehicle index file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported format version " + version);
+            }
+
+            LocalDate builtOn = LocalDate.ofEpochDay(buffer.getLong());
+            int size = buffer.getInt();
+            int minYear = buffer.getInt();
+            int maxYear = buffer.getInt();
+            double minLogPrice = buffer.getDouble();
+            double maxLogPrice = buffer.getDouble();
+            int maxMileage = buffer.getInt();
+            Dictionary bodyTypes = getDictionary(buffer);
+            Dictionary fuelTypes = getDictionary(buffer);
+            Dictionary makes = getDictionary(buffer);
+
+            long[] ids = new long[size];
+            buffer.asLongBuffer().get(ids);
+            buffer.position(buffer.position() + size * 8);
+            Snapshot snapshot = new Snapshot(size, ids, minYear, maxYear, minLogPrice, maxLogPrice,
+                                             maxMileage, bodyTypes, fuelTypes, makes, builtOn);
+            getShorts(buffer, snapshot.years);
+            getShorts(buffer, snapshot.prices);
+            getShorts(buffer, snapshot.mileages);
+            getInts(buffer, snapshot.bodyTypeCodes);
+            getInts(buffer, snapshot.fuelTypeCodes);
+            getInts(buffer, snapshot.makeCodes);
+            long[] liveWords = new long[buffer.getInt()];
+            buffer.asLongBuffer().get(liveWords);
+            snapshot.live.or(BitSet.valueOf(liveWords));
+            return snapshot;
+        }
+    }
+
+    private static List<byte[]> encode(Dictionary dictionary) {
+        List<byte[]> encoded = new ArrayList<>();
+        for (String value : dictionary.values()) {
+            encoded.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoded;
+    }
+
+    private static int dictionaryLength(List<byte[]> values) {
+        int length = 4;
+        for (byte[] value : values) {
+            length += 4 + value.length;
+        }
+        return length;
+    }
+
+    private static void putDictionary(ByteBuffer buffer, List<byte[]> values) {
+        buffer.putInt(values.size());
+        for (byte[] value : values) {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static Dictionary getDictionary(ByteBuffer buffer) {
+        Dictionary dictionary = new Dictionary();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            // Values were written in code order, so they get their original codes back
+            dictionary.add(new String(value, StandardCharsets.UTF_8));
+        }
+        return dictionary;
+    }
+
+    private static void putShorts(ByteBuffer buffer, short[] values) {
+        buffer.asShortBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 2);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    private static void getShorts(ByteBuffer buffer, short[] values) {
+        buffer.asShortBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 2);
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+}
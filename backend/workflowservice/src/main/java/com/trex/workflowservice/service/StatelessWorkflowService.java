@@ -0,0 +1,141 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.dto.WorkflowTokenResponse;
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import com.trex.workflowservice.workflow.WorkflowDefinition;
+import com.trex.workflowservice.workflow.WorkflowDefinitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Token mode: runs workflow sessions whose state travels with the client in a signed
+ * token ({@link WorkflowTokenCodec}) instead of living in the session store, so the
+ * anonymous part of a flow costs no database work.
+ *
+ * Each call verifies the token, applies the step through the same
+ * {@link WorkflowDefinition} as stored sessions and returns a new token. A session is
+ * stored only when it completes, when the client asks for it ({@link #save}), or when
+ * its data outgrows a token; the response then carries the session id instead, and the
+ * client continues with the stored-session endpoints. The stored session starts from
+ * the token's step and data, without the history of the steps before.
+ *
+ * Tokens are bearer state: a client can go back to an earlier token of its own session,
+ * which is no different from navigating back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatelessWorkflowService {
+
+    private final WorkflowTokenCodec tokenCodec;
+    private final WorkflowDefinitions workflowDefinitions;
+    private final WorkflowSessionStore sessionStore;
+    private final WorkflowFunnelMetrics funnel;
+    private final StepDataPrefetcher prefetcher;
+    private final WorkflowStatusCounts statusCounts;
+
+    public WorkflowTokenResponse start(String workflowType) {
+        WorkflowDefinition workflow;
+        try {
+            workflow = workflowDefinitions.getWorkflow(workflowType);
+        } catch (IllegalArgumentException e) {
+            return error(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR, "Invalid workflow type: " + workflowType);
+        }
+        WorkflowState state = workflow.initializeState(UUID.randomUUID().toString());
+        funnel.record(workflowType, state.getCurrentStep(), WorkflowFunnelMetrics.STARTED);
+        return respond(state, workflow.getStepConfig(state.getCurrentStep(), state.getUserData()));
+    }
+
+    public WorkflowTokenResponse transition(String token, String currentStep, Map<String, Object> formData) {
+        return apply(token, currentStep, (workflow, state) ->
+                workflow.processTransition(state, currentStep, formData != null ? formData : Map.of()));
+    }
+
+    public WorkflowTokenResponse goBack(String token, String currentStep) {
+        return apply(token, currentStep, (workflow, state) -> workflow.processBack(state, currentStep));
+    }
+
+    /**
+     * Stores the token's session so it can be continued by session id.
+     */
+    public WorkflowTokenResponse save(String token) {
+        WorkflowState state;
+        try {
+            state = tokenCodec.decode(token);
+        } catch (WorkflowTokenCodec.InvalidTokenException e) {
+            return error(WorkflowTransitionResponse.ResponseStatus.VALIDATION_ERROR, e.getMessage());
+        }
+        WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+        String sessionId = persist(state);
+        return new WorkflowTokenResponse(workflow.getStepConfig(state.getCurrentStep(), state.getUserData()), null, sessionId);
+    }
+
+    private WorkflowTokenResponse apply(String token, String currentStep, Step step) {
+        WorkflowState state;
+        try {
+            state = tokenCodec.decode(token);
+        } catch (WorkflowTokenCodec.InvalidTokenException e) {
+            log.warn("Rejected workflow token: {}", e.getMessage());
+            return error(WorkflowTransitionResponse.ResponseStatus.VALIDATION_ERROR, e.getMessage());
+        }
+
+        WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+        if (currentStep == null || !currentStep.equals(state.getCurrentStep())) {
+            return error(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR,
+                    "Step mismatch. Expected: " + state.getCurrentStep() + ", got: " + currentStep);
+        }
+
+        WorkflowTransitionResponse result = step.apply(workflow, state);
+        funnel.record(state.getWorkflowType(), currentStep, result);
+        if (result.getStatus() != WorkflowTransitionResponse.ResponseStatus.SUCCESS) {
+            // The client keeps its current token
+            return new WorkflowTokenResponse(result, null, null);
+        }
+        return respond(state, prefetcher.attach(workflow, result));
+    }
+
+    private WorkflowTokenResponse respond(WorkflowState state, WorkflowTransitionResponse response) {
+        if (state.getStatus() != WorkflowState.WorkflowStatus.IN_PROGRESS) {
+            return new WorkflowTokenResponse(response, null, persist(state));
+        }
+        Optional<String> token = tokenCodec.encode(state);
+        if (token.isEmpty()) {
+            log.info("Session {} outgrew its workflow token, storing it", state.getSessionId());
+            return new WorkflowTokenResponse(response, null, persist(state));
+        }
+        return new WorkflowTokenResponse(response, token.get(), null);
+    }
+
+    // A token stored again (double submit, replayed completion) keeps the first copy
+    private String persist(WorkflowState state) {
+        if (sessionStore.find(state.getSessionId()).isEmpty()) {
+            try {
+                sessionStore.save(state);
+                statusCounts.changed(state.getWorkflowType(), null, state.getStatus());
+                log.info("Stored token-mode workflow session {} at step {}", state.getSessionId(), state.getCurrentStep());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Token-mode workflow session {} was stored concurrently", state.getSessionId());
+            }
+        }
+        return state.getSessionId();
+    }
+
+    private static WorkflowTokenResponse error(WorkflowTransitionResponse.ResponseStatus status, String message) {
+        return new WorkflowTokenResponse(WorkflowTransitionResponse.builder()
+                .status(status)
+                .message(message)
+                .build(), null, null);
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        WorkflowTransitionResponse apply(WorkflowDefinition workflow, WorkflowState state);
+    }
+}
@@ -0,0 +1,176 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.cache.InventoryVersion;
+import com.trex.workflowservice.cache.SingleFlight;
+import com.trex.workflowservice.config.VirtualThreads;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import com.trex.workflowservice.workflow.StepData;
+import com.trex.workflowservice.workflow.WorkflowDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the shared data a workflow step declares (see
+ * {@link WorkflowDefinition#getStepDependencies}) and adds it to the response leading to
+ * the step, under data.prefetched, saving the client its follow-up requests.
+ *
+ * The data is the same for every session, so resolved values are kept as snapshots
+ * stamped with the {@link InventoryVersion}; a snapshot is reused until inventory
+ * changes or it reaches max-age. Missing snapshots are resolved concurrently, and
+ * whatever isn't ready within the timeout is left out; the client then fetches it the
+ * usual way.
+ */
+@Component
+@Slf4j
+public class StepDataPrefetcher {
+
+    private final InventoryVersion inventoryVersion;
+    private final Map<String, Supplier<Object>> resolvers;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Responses arriving together while a snapshot is missing share one load
+    private final SingleFlight<String, Object> loads;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final long maxAgeNanos;
+    private final long timeoutMs;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter timeouts;
+
+    public StepDataPrefetcher(
+            VehicleService vehicleService,
+            HotFilterRecorder hotFilterRecorder,
+            InventoryVersion inventoryVersion,
+            MeterRegistry meterRegistry,
+            @Value("${workflow.prefetch.enabled:true}") boolean enabled,
+            @Value("${workflow.prefetch.max-age:PT5M}") Duration maxAge,
+            @Value("${workflow.prefetch.timeout:PT0.2S}") Duration timeout,
+            @Value("${workflow.prefetch.threads:4}") int threads,
+            @Value("${virtual-threads.enabled:false}") boolean virtualThreads) {
+        this.inventoryVersion = inventoryVersion;
+        this.enabled = enabled;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.timeoutMs = timeout.toMillis();
+        // Prefetches are not user requests, so they don't count towards hot filters
+        this.resolvers = Map.of(
+            StepData.FILTERS, vehicleService::getSearchFilters,
+            StepData.MAKES, vehicleService::getAllMakes,
+            StepData.FILTER_COUNTS, () -> {
+                Object[] counts = new Object[1];
+                hotFilterRecorder.withoutRecording(() -> counts[0] = vehicleService.getFilterCounts(
+                    null, null, null, null, null, null, null, null, null, null, null, null, null, null, null));
+                return counts[0];
+            });
+        this.loads = new SingleFlight<>("stepPrefetch", meterRegistry);
+        if (virtualThreads) {
+            // Tasks mostly wait on the database or on a shared load, which costs a virtual thread nothing
+            this.executor = VirtualThreads.newThreadPerTaskExecutor("step-prefetch-vt-");
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "step-prefetch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.hits = Counter.builder("workflow.prefetch.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("workflow.prefetch.requests").tag("result", "miss").register(meterRegistry);
+        this.timeouts = Counter.builder("workflow.prefetch.requests").tag("result", "timeout").register(meterRegistry);
+    }
+
+    /**
+     * Returns the response with the data its step depends on added, or the response
+     * itself if the step has none (or it isn't a successful step change).
+     */
+    public WorkflowTransitionResponse attach(WorkflowDefinition workflow, WorkflowTransitionResponse response) {
+        if (!enabled || response.getStatus() != WorkflowTransitionResponse.ResponseStatus.SUCCESS) {
+            return response;
+        }
+        List<String> dependencies = workflow.getStepDependencies(response.getStepId());
+        if (dependencies.isEmpty()) {
+            return response;
+        }
+
+        Map<String, Object> prefetched = resolve(dependencies);
+        if (prefetched.isEmpty()) {
+            return response;
+        }
+        // Step data may be the session's own map or a shared static one; never modify it
+        Map<String, Object> data = response.getData() != null ? new HashMap<>(response.getData()) : new HashMap<>();
+        data.put("prefetched", prefetched);
+        response.setData(data);
+        return response;
+    }
+
+    private Map<String, Object> resolve(List<String> dependencies) {
+        long version = inventoryVersion.current();
+        long now = System.nanoTime();
+        Map<String, Object> resolved = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> pending = new LinkedHashMap<>();
+        for (String name : dependencies) {
+            Snapshot snapshot = snapshots.get(name);
+            if (snapshot != null && snapshot.version() == version && now - snapshot.loadedAt() < maxAgeNanos) {
+                hits.increment();
+                resolved.put(name, snapshot.value());
+                continue;
+            }
+            Supplier<Object> resolver = resolvers.get(name);
+            if (resolver == null) {
+                log.warn("No resolver for step data {}", name);
+                continue;
+            }
+            misses.increment();
+            pending.put(name, CompletableFuture.supplyAsync(() -> {
+                Object value = loads.execute(name, resolver);
+                // Stamped with the version read before loading, so a change during the load
+                // makes it stale right away
+                snapshots.put(name, new Snapshot(value, version, System.nanoTime()));
+                return value;
+            }, executor));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Map.Entry<String, CompletableFuture<Object>> entry : pending.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                resolved.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // Keeps running and fills the snapshot for the next response
+                timeouts.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Could not prefetch step data {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return resolved;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Snapshot(Object value, long version, long loadedAt) {
+    }
+}
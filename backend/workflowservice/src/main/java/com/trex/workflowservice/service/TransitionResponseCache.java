@@ -0,0 +1,87 @@
+package com.trex.workflowservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Recent transition responses by endpoint, session and client idempotency key.
+ *
+ * The first call with a key runs the transition; calls with the same key while it runs
+ * wait for its response, and later ones get the cached response until it expires.
+ * System errors are not kept, so a retry after one runs the transition again.
+ *
+ * Used by the engine's stored-session transitions and by the controller's stateless
+ * POST /transition, whose responses are plain objects. Each has its own {@link Scope}, so
+ * a key a client reuses across endpoints never returns another endpoint's response.
+ */
+@Component
+public class TransitionResponseCache {
+
+    /**
+     * The endpoint a response belongs to; part of the key.
+     */
+    public enum Scope {
+        TRANSITION,
+        BATCH,
+        STATELESS_TRANSITION
+    }
+
+    private final Cache<String, CompletableFuture<Object>> responses;
+
+    public TransitionResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${workflow.idempotency.max-entries:100000}") long maxEntries,
+            @Value("${workflow.idempotency.ttl:PT10M}") Duration ttl) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "workflowTransitionResponses");
+    }
+
+    public WorkflowTransitionResponse execute(Scope scope, String sessionId, String idempotencyKey,
+                                              Supplier<WorkflowTransitionResponse> transition) {
+        return execute(scope, sessionId, idempotencyKey, transition,
+                response -> response.getStatus() == WorkflowTransitionResponse.ResponseStatus.SYSTEM_ERROR);
+    }
+
+    /**
+     * Same for any response type; responses matching isSystemError are handed to the
+     * waiting duplicates but not kept. Every scope has a single response type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Scope scope, String sessionId, String idempotencyKey, Supplier<T> transition,
+                         Predicate<T> isSystemError) {
+        String key = scope.name() + '\u0000' + sessionId + '\u0000' + idempotencyKey;
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = responses.asMap().putIfAbsent(key, created);
+        if (existing != null) {
+            return (T) existing.join();
+        }
+
+        T response;
+        try {
+            response = transition.get();
+        } catch (RuntimeException e) {
+            responses.asMap().remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+        if (isSystemError.test(response)) {
+            responses.asMap().remove(key, created);
+        }
+        created.complete(response);
+        return response;
+    }
+}
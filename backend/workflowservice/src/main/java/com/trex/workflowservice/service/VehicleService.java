@@ -1,7 +1,16 @@
 package com.trex.workflowservice.service;
 
+import com.trex.workflowservice.cache.InventoryChangeBus;
+import com.trex.workflowservice.cache.SearchResultCache;
+import com.trex.workflowservice.cache.SingleFlight;
+import com.trex.workflowservice.cache.VehicleDetailCache;
+import com.trex.workflowservice.cache.VehicleQueryKey;
+import com.trex.workflowservice.dto.VehicleDetail;
+import com.trex.workflowservice.event.InventoryChangedEvent;
 import com.trex.workflowservice.model.Vehicle;
 import com.trex.workflowservice.repository.VehicleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,12 +19,18 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class VehicleService {
@@ -25,6 +40,51 @@ public class VehicleService {
     @Autowired
     private VehicleRepository vehicleRepository;
     
+    @Autowired
+    private SimilarVehicleIndex similarVehicleIndex;
+    
+    @Autowired
+    private SavedSearchService savedSearchService;
+    
+    @Autowired
+    private VehicleDetailCache vehicleDetailCache;
+    
+    @Autowired
+    private InventoryChangeBus inventoryChangeBus;
+    
+    @Autowired
+    private SearchResultCache searchResultCache;
+    
+    @Autowired
+    private HotFilterRecorder hotFilterRecorder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Identical concurrent search/facet requests share one execution
+    private SingleFlight<VehicleQueryKey, Page<Vehicle>> searchFlight;
+    private SingleFlight<VehicleQueryKey, Map<String, Object>> filterCountsFlight;
+    private SingleFlight<VehicleQueryKey, Map<String, Object>> filteredRangesFlight;
+    
+    // Read-only transaction for the loads behind the caches and flights, which may be
+    // served by a replica (see ReadReplicaConfig). Named, since the routing leaves
+    // unnamed transactions on the primary.
+    private TransactionTemplate replicaReads;
+    
+    @PostConstruct
+    void initRequestCoalescing() {
+        searchFlight = new SingleFlight<>("search", meterRegistry);
+        filterCountsFlight = new SingleFlight<>("filterCounts", meterRegistry);
+        filteredRangesFlight = new SingleFlight<>("filteredRanges", meterRegistry);
+        
+        replicaReads = new TransactionTemplate(transactionManager);
+        replicaReads.setReadOnly(true);
+        replicaReads.setName(VehicleService.class.getName() + ".replicaRead");
+    }
+    
     public Page<Vehicle> searchVehicles(
             String make, 
             String model, 
@@ -49,13 +109,20 @@ public class VehicleService {
                    make, model, minYear, maxYear, minPrice, maxPrice, province, city, maxMileage, 
                    fuelType, bodyType, transmission, page, size, sortBy, sortDir);
         
+        hotFilterRecorder.record("search", "make", make, "model", model, "minYear", minYear, "maxYear", maxYear,
+            "minPrice", minPrice, "maxPrice", maxPrice, "province", province, "city", city,
+            "maxMileage", maxMileage, "fuelType", fuelType, "bodyType", bodyType, "transmission", transmission,
+            "page", page, "size", size, "sortBy", sortBy, "sortDir", sortDir);
+        
         Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        return vehicleRepository.findVehiclesWithFilters(
+        VehicleQueryKey key = VehicleQueryKey.of("search", make, model, minYear, maxYear, minPrice, maxPrice,
+            province, city, maxMileage, fuelType, bodyType, transmission, pageable);
+        return searchResultCache.get(key, make, () -> searchFlight.execute(key, () -> replicaRead(() -> vehicleRepository.findVehiclesWithFilters(
             make, model, minYear, maxYear, minPrice, maxPrice, 
             province, city, maxMileage, fuelType, bodyType, transmission, pageable
-        );
+        ))));
     }
     
     public Page<Vehicle> searchVehiclesByText(String searchText, int page, int size, String sortBy, String sortDir) {
@@ -80,7 +147,37 @@ public class VehicleService {
     
     public Optional<Vehicle> getVehicleById(Long id) {
         logger.info("Getting vehicle by id: {}", id);
-        return vehicleRepository.findById(id);
+        return vehicleDetailCache.get(id, this::loadVehicle);
+    }
+    
+    // Detail response with extras/comments streamed from off-heap storage
+    public Optional<VehicleDetail> getVehicleDetail(Long id) {
+        logger.info("Getting vehicle detail by id: {}", id);
+        return vehicleDetailCache.getDetail(id, this::loadVehicle);
+    }
+    
+    public Optional<List<Vehicle>> getSimilarVehicles(Long id, int limit) {
+        logger.info("Getting up to {} vehicles similar to id: {}", limit, id);
+        Optional<Vehicle> vehicle = vehicleDetailCache.getDetail(id, this::loadVehicle).map(VehicleDetail::getVehicle);
+        if (vehicle.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        List<Long> similarIds = similarVehicleIndex.findSimilar(vehicle.get(), limit);
+        Map<Long, Vehicle> vehiclesById = new HashMap<>();
+        for (Vehicle similar : vehicleRepository.findAllById(similarIds)) {
+            vehiclesById.put(similar.getId(), similar);
+        }
+        
+        // Keep the nearest-first order from the index
+        List<Vehicle> similarVehicles = new ArrayList<>(similarIds.size());
+        for (Long similarId : similarIds) {
+            Vehicle similar = vehiclesById.get(similarId);
+            if (similar != null && similar.getSoldDate() == null) {
+                similarVehicles.add(similar);
+            }
+        }
+        return Optional.of(similarVehicles);
     }
     
     public List<String> getAllMakes() {
@@ -173,14 +270,46 @@ public class VehicleService {
         return vehicleRepository.count();
     }
     
+    @Transactional
     public Vehicle saveVehicle(Vehicle vehicle) {
         logger.info("Saving vehicle: {}", vehicle.getId());
-        return vehicleRepository.save(vehicle);
+        Vehicle previous = vehicle.getId() != null
+            ? vehicleRepository.findById(vehicle.getId()).map(this::copyMatchingFields).orElse(null)
+            : null;
+        Vehicle saved = vehicleRepository.save(vehicle);
+        inventoryChangeBus.publish(InventoryChangedEvent.upsert(saved.getId(), saved.getMakeName(),
+            previous != null ? previous.getMakeName() : null));
+        savedSearchService.onVehicleSaved(previous, saved);
+        return saved;
+    }
+    
+    /**
+     * Bulk inventory load: one batched write and a single invalidation for all nodes
+     */
+    @Transactional
+    public List<Vehicle> saveVehicles(List<Vehicle> vehicles) {
+        logger.info("Saving {} vehicles in bulk", vehicles.size());
+        // Copied before saving: saveAll merges the new values into these managed rows.
+        // Vehicles that already existed are re-upserted by every import and must not
+        // count as new inventory for saved searches.
+        List<Long> ids = vehicles.stream().map(Vehicle::getId).filter(Objects::nonNull).toList();
+        Map<Long, Vehicle> previous = new HashMap<>();
+        for (Vehicle existing : vehicleRepository.findAllById(ids)) {
+            previous.put(existing.getId(), copyMatchingFields(existing));
+        }
+        List<Vehicle> saved = vehicleRepository.saveAll(vehicles);
+        inventoryChangeBus.publish(InventoryChangedEvent.bulk());
+        for (Vehicle vehicle : saved) {
+            savedSearchService.onVehicleSaved(previous.get(vehicle.getId()), vehicle);
+        }
+        return saved;
     }
     
+    @Transactional
     public void deleteVehicle(Long id) {
         logger.info("Deleting vehicle with id: {}", id);
         vehicleRepository.deleteById(id);
+        inventoryChangeBus.publish(InventoryChangedEvent.delete(id));
     }
     
     // Filtered methods based on make and model selection
@@ -267,6 +396,14 @@ public class VehicleService {
     
     // Get filtered ranges based on current selections
     public Map<String, Object> getFilteredRanges(String make, String model, String bodyType, String fuelType, String province) {
+        hotFilterRecorder.record("ranges", "make", make, "model", model, "bodyType", bodyType,
+            "fuelType", fuelType, "province", province);
+        
+        VehicleQueryKey key = VehicleQueryKey.of("filteredRanges", make, model, bodyType, fuelType, province);
+        return filteredRangesFlight.execute(key, () -> replicaRead(() -> computeFilteredRanges(make, model, bodyType, fuelType, province)));
+    }
+    
+    private Map<String, Object> computeFilteredRanges(String make, String model, String bodyType, String fuelType, String province) {
         logger.info("🚀 START: Getting filtered ranges for make: {}, model: {}, bodyType: {}, fuelType: {}, province: {}", 
                    make, model, bodyType, fuelType, province);
         
@@ -375,6 +512,34 @@ public class VehicleService {
         return ranges;
     }
     
+    /**
+     * Detached copy of the fields saved searches filter on; the managed entity
+     * itself would be overwritten by the subsequent merge
+     */
+    private Optional<Vehicle> loadVehicle(Long id) {
+        return replicaRead(() -> vehicleRepository.findById(id));
+    }
+    
+    // Only the caller that actually queries opens the transaction: cache hits and callers
+    // joining an in-flight computation never take a connection
+    private <T> T replicaRead(Supplier<T> load) {
+        return replicaReads.execute(status -> load.get());
+    }
+    
+    private Vehicle copyMatchingFields(Vehicle vehicle) {
+        Vehicle copy = new Vehicle(vehicle.getMakeName(), vehicle.getModelName(), vehicle.getYear());
+        copy.setId(vehicle.getId());
+        copy.setProvinceName(vehicle.getProvinceName());
+        copy.setCityName(vehicle.getCityName());
+        copy.setPrice(vehicle.getPrice());
+        copy.setMileage(vehicle.getMileage());
+        copy.setFuelType(vehicle.getFuelType());
+        copy.setBodyType(vehicle.getBodyType());
+        copy.setTransmission(vehicle.getTransmission());
+        copy.setSoldDate(vehicle.getSoldDate());
+        return copy;
+    }
+    
     /**
      * Safely convert an object to BigDecimal, handling various numeric types
      */
@@ -449,6 +614,25 @@ public class VehicleService {
             List<String> bodyTypes, List<String> fuelTypes, String transmission, String condition,
             String province, String city, List<String> colours) {
         
+        hotFilterRecorder.record("filterCounts", "make", make, "model", model, "yearMin", yearMin, "yearMax", yearMax,
+            "priceMin", priceMin, "priceMax", priceMax, "mileageMin", mileageMin, "mileageMax", mileageMax,
+            "bodyTypes", bodyTypes, "fuelTypes", fuelTypes, "transmission", transmission, "condition", condition,
+            "province", province, "city", city, "colours", colours);
+        
+        VehicleQueryKey key = VehicleQueryKey.of("filterCounts", make, model, yearMin, yearMax, priceMin, priceMax,
+            mileageMin, mileageMax, bodyTypes, fuelTypes, transmission, condition, province, city, colours);
+        return filterCountsFlight.execute(key, () -> replicaRead(() -> computeFilterCounts(
+            make, model, yearMin, yearMax, priceMin, priceMax, mileageMin, mileageMax,
+            bodyTypes, fuelTypes, transmission, condition, province, city, colours
+        )));
+    }
+    
+    private Map<String, Object> computeFilterCounts(
+            String make, String model, Integer yearMin, Integer yearMax,
+            BigDecimal priceMin, BigDecimal priceMax, Integer mileageMin, Integer mileageMax,
+            List<String> bodyTypes, List<String> fuelTypes, String transmission, String condition,
+            String province, String city, List<String> colours) {
+        
         logger.info("Getting filter counts with filters");
         
         Map<String, Object> response = new HashMap<>();
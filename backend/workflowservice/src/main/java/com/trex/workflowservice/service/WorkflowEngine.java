@@ -1,43 +1,65 @@
 package com.trex.workflowservice.service;
 
+import com.trex.workflowservice.dto.BatchTransitionRequest;
+import com.trex.workflowservice.model.WorkflowEvent;
 import com.trex.workflowservice.model.WorkflowState;
 import com.trex.workflowservice.model.WorkflowTransitionResponse;
-import com.trex.workflowservice.repository.WorkflowStateRepository;
 import com.trex.workflowservice.workflow.WorkflowDefinition;
 import com.trex.workflowservice.workflow.WorkflowDefinitions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+/**
+ * Runs workflow sessions against a {@link WorkflowSessionStore}. Sessions may be shared
+ * objects held in memory, so every read-modify-save of a state happens while holding
+ * that state's monitor.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WorkflowEngine {
 
-    private final WorkflowStateRepository stateRepository;
+    private static final int MAX_CONFLICT_ATTEMPTS = 3;
+
+    private final WorkflowSessionStore sessionStore;
+    private final WorkflowEventLog eventLog;
     private final WorkflowDefinitions workflowDefinitions;
+    private final TransitionResponseCache transitionResponses;
+    private final WorkflowFunnelMetrics funnel;
+    private final StepDataPrefetcher prefetcher;
+    private final WorkflowStatusCounts statusCounts;
 
-    @Transactional
     public WorkflowTransitionResponse startWorkflow(String sessionId, String workflowType) {
         log.info("Starting workflow: {} for session: {}", workflowType, sessionId);
         
         try {
             // Check if session already exists
-            var existingState = stateRepository.findBySessionId(sessionId);
+            var existingState = sessionStore.find(sessionId);
             if (existingState.isPresent()) {
                 log.warn("Session {} already exists, returning current state", sessionId);
                 WorkflowState state = existingState.get();
-                WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
-                return workflow.getStepConfig(state.getCurrentStep(), state.getContext());
+                synchronized (state) {
+                    WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+                    return workflow.getStepConfig(state.getCurrentStep(), state.getContext());
+                }
             }
             
             // Initialize new workflow state
             WorkflowDefinition workflow = workflowDefinitions.getWorkflow(workflowType);
             WorkflowState newState = workflow.initializeState(sessionId);
-            stateRepository.save(newState);
+            sessionStore.save(newState);
+            statusCounts.changed(workflowType, null, newState.getStatus());
+            funnel.record(workflowType, newState.getCurrentStep(), WorkflowFunnelMetrics.STARTED);
             
             log.info("Successfully started workflow for session: {}", sessionId);
             return workflow.getStepConfig(newState.getCurrentStep(), newState.getContext());
@@ -57,38 +79,84 @@ public class WorkflowEngine {
         }
     }
 
-    @Transactional
     public WorkflowTransitionResponse transition(String sessionId, String currentStep, Map<String, Object> formData) {
+        return transition(sessionId, currentStep, formData, null);
+    }
+
+    /**
+     * Applies a transition once per idempotency key: a retried or double-submitted call
+     * with the same key gets the first call's response without touching the session.
+     */
+    public WorkflowTransitionResponse transition(String sessionId, String currentStep, Map<String, Object> formData,
+                                                 String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return applyTransition(sessionId, currentStep, formData, null);
+        }
+        return transitionResponses.execute(TransitionResponseCache.Scope.TRANSITION, sessionId, idempotencyKey,
+                () -> applyTransition(sessionId, currentStep, formData, idempotencyKey));
+    }
+
+    private WorkflowTransitionResponse applyTransition(String sessionId, String currentStep, Map<String, Object> formData,
+                                                       String idempotencyKey) {
         log.info("Processing transition for session: {} from step: {}", sessionId, currentStep);
         
+        // Known once the session is read; a failure before that is counted under "unknown"
+        AtomicReference<String> workflowType = new AtomicReference<>();
         try {
-            WorkflowState state = stateRepository.findBySessionId(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
-            
-            // Validate current step matches state
-            if (!currentStep.equals(state.getCurrentStep())) {
-                log.warn("Step mismatch for session {}: expected {}, got {}", 
-                        sessionId, state.getCurrentStep(), currentStep);
-                return WorkflowTransitionResponse.builder()
-                        .status(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR)
-                        .message("Step mismatch. Expected: " + state.getCurrentStep() + ", got: " + currentStep)
-                        .build();
-            }
-            
-            WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
-            
-            // Process the transition
-            WorkflowTransitionResponse response = workflow.processTransition(state, currentStep, formData);
-            
-            // Save updated state
-            stateRepository.save(state);
+            AtomicReference<WorkflowDefinition> definition = new AtomicReference<>();
+            WorkflowTransitionResponse response = retryOnConflict(sessionId, () -> {
+                WorkflowState state = sessionStore.find(sessionId)
+                        .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
+                workflowType.set(state.getWorkflowType());
+                
+                synchronized (state) {
+                    WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+                    definition.set(workflow);
+                    
+                    // A duplicate whose first attempt already went through (possibly on another
+                    // instance, or before a restart) gets the step it led to
+                    if (idempotencyKey != null && idempotencyKey.equals(state.getLastIdempotencyKey())) {
+                        log.info("Duplicate transition {} for session {}, returning current step", 
+                                idempotencyKey, sessionId);
+                        return workflow.getStepConfig(state.getCurrentStep(), state.getUserData());
+                    }
+                    
+                    // Validate current step matches state
+                    if (!currentStep.equals(state.getCurrentStep())) {
+                        log.warn("Step mismatch for session {}: expected {}, got {}", 
+                                sessionId, state.getCurrentStep(), currentStep);
+                        WorkflowTransitionResponse mismatch = WorkflowTransitionResponse.builder()
+                                .status(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR)
+                                .message("Step mismatch. Expected: " + state.getCurrentStep() + ", got: " + currentStep)
+                                .build();
+                        funnel.record(state.getWorkflowType(), currentStep, mismatch);
+                        return mismatch;
+                    }
+                    
+                    // Process the transition
+                    WorkflowState.WorkflowStatus statusBefore = state.getStatus();
+                    WorkflowTransitionResponse result = workflow.processTransition(state, currentStep, formData);
+                    
+                    // Record the step; the full state is only written every few events or
+                    // when the status changes
+                    if (result.getStatus() == WorkflowTransitionResponse.ResponseStatus.SUCCESS) {
+                        record(state, statusBefore, WorkflowEvent.EventType.TRANSITION, currentStep, formData, idempotencyKey);
+                        statusCounts.changed(state.getWorkflowType(), statusBefore, state.getStatus());
+                    }
+                    // Counted once the attempt can no longer be retried
+                    funnel.record(state.getWorkflowType(), currentStep, result);
+                    return result;
+                }
+            });
             
             log.info("Successfully processed transition for session: {} to step: {}", 
                     sessionId, response.getStepId());
-            return response;
+            // Resolved outside the session's monitor
+            return prefetcher.attach(definition.get(), response);
             
         } catch (RuntimeException e) {
             log.error("Error processing transition for session: {}", sessionId, e);
+            funnel.record(workflowType.get(), currentStep, WorkflowTransitionResponse.ResponseStatus.SYSTEM_ERROR.name());
             return WorkflowTransitionResponse.builder()
                     .status(WorkflowTransitionResponse.ResponseStatus.SYSTEM_ERROR)
                     .message("Transition failed: " + e.getMessage())
@@ -96,25 +164,122 @@ public class WorkflowEngine {
         }
     }
 
-    @Transactional
+    /**
+     * Applies several steps in one go and returns the configuration of the step reached
+     * after the last one. Either all steps are applied or none: they are first run
+     * against a scratch copy of the session, and a failing step is reported (by index
+     * and step id in the response data) without changing the session.
+     */
+    public WorkflowTransitionResponse transitionBatch(String sessionId, List<BatchTransitionRequest.Step> steps,
+                                                      String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return applyBatch(sessionId, steps, null);
+        }
+        return transitionResponses.execute(TransitionResponseCache.Scope.BATCH, sessionId, idempotencyKey,
+                () -> applyBatch(sessionId, steps, idempotencyKey));
+    }
+
+    private WorkflowTransitionResponse applyBatch(String sessionId, List<BatchTransitionRequest.Step> steps,
+                                                  String idempotencyKey) {
+        log.info("Processing {} batched transitions for session: {}", steps.size(), sessionId);
+        
+        try {
+            AtomicReference<WorkflowDefinition> definition = new AtomicReference<>();
+            WorkflowTransitionResponse response = retryOnConflict(sessionId, () -> {
+                WorkflowState state = sessionStore.find(sessionId)
+                        .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
+                
+                synchronized (state) {
+                    WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+                    definition.set(workflow);
+                    
+                    if (idempotencyKey != null && idempotencyKey.equals(state.getLastIdempotencyKey())) {
+                        log.info("Duplicate batch {} for session {}, returning current step", idempotencyKey, sessionId);
+                        return workflow.getStepConfig(state.getCurrentStep(), state.getUserData());
+                    }
+                    
+                    WorkflowState scratch = scratchCopyOf(state);
+                    WorkflowTransitionResponse result = null;
+                    for (int i = 0; i < steps.size(); i++) {
+                        BatchTransitionRequest.Step step = steps.get(i);
+                        if (!step.getStep().equals(scratch.getCurrentStep())) {
+                            result = WorkflowTransitionResponse.builder()
+                                    .status(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR)
+                                    .message("Step mismatch. Expected: " + scratch.getCurrentStep() + ", got: " + step.getStep())
+                                    .build();
+                        } else {
+                            result = workflow.processTransition(scratch, step.getStep(), step.getData());
+                        }
+                        if (result.getStatus() != WorkflowTransitionResponse.ResponseStatus.SUCCESS) {
+                            funnel.record(state.getWorkflowType(), step.getStep(), result);
+                            return batchFailure(result, i, step.getStep());
+                        }
+                    }
+                    
+                    // Every step went through; take over the scratch state and record the steps,
+                    // the idempotency key on the last one
+                    WorkflowState.WorkflowStatus statusBefore = state.getStatus();
+                    state.setCurrentStep(scratch.getCurrentStep());
+                    state.setUserData(scratch.getUserData());
+                    state.setContext(scratch.getContext());
+                    state.setNavigationHistory(scratch.getNavigationHistory());
+                    state.setStatus(scratch.getStatus());
+                    List<WorkflowEvent> events = new ArrayList<>(steps.size());
+                    for (int i = 0; i < steps.size(); i++) {
+                        BatchTransitionRequest.Step step = steps.get(i);
+                        events.add(eventLog.next(state, WorkflowEvent.EventType.TRANSITION, step.getStep(), step.getData(),
+                                i == steps.size() - 1 ? idempotencyKey : null));
+                    }
+                    sessionStore.appendAll(state, events);
+                    snapshotIfDue(state, statusBefore);
+                    statusCounts.changed(state.getWorkflowType(), statusBefore, state.getStatus());
+                    for (BatchTransitionRequest.Step step : steps) {
+                        funnel.record(state.getWorkflowType(), step.getStep(), result);
+                    }
+                    
+                    log.info("Successfully processed {} batched transitions for session: {} to step: {}",
+                            steps.size(), sessionId, result.getStepId());
+                    return result;
+                }
+            });
+            return prefetcher.attach(definition.get(), response);
+            
+        } catch (RuntimeException e) {
+            log.error("Error processing batched transitions for session: {}", sessionId, e);
+            return WorkflowTransitionResponse.builder()
+                    .status(WorkflowTransitionResponse.ResponseStatus.SYSTEM_ERROR)
+                    .message("Batch transition failed: " + e.getMessage())
+                    .build();
+        }
+    }
+
     public WorkflowTransitionResponse goBack(String sessionId, String currentStep) {
         log.info("Processing back navigation for session: {} from step: {}", sessionId, currentStep);
         
         try {
-            WorkflowState state = stateRepository.findBySessionId(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
-            
-            WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
-            
-            // Process back navigation
-            WorkflowTransitionResponse response = workflow.processBack(state, currentStep);
-            
-            // Save updated state
-            stateRepository.save(state);
+            AtomicReference<WorkflowDefinition> definition = new AtomicReference<>();
+            WorkflowTransitionResponse response = retryOnConflict(sessionId, () -> {
+                WorkflowState state = sessionStore.find(sessionId)
+                        .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
+                
+                synchronized (state) {
+                    WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+                    definition.set(workflow);
+                    
+                    // Process back navigation
+                    WorkflowTransitionResponse result = workflow.processBack(state, currentStep);
+                    
+                    if (result.getStatus() == WorkflowTransitionResponse.ResponseStatus.SUCCESS) {
+                        record(state, state.getStatus(), WorkflowEvent.EventType.BACK, currentStep, null, null);
+                        funnel.record(state.getWorkflowType(), currentStep, WorkflowFunnelMetrics.BACK);
+                    }
+                    return result;
+                }
+            });
             
             log.info("Successfully processed back navigation for session: {} to step: {}", 
                     sessionId, response.getStepId());
-            return response;
+            return prefetcher.attach(definition.get(), response);
             
         } catch (RuntimeException e) {
             log.error("Error processing back navigation for session: {}", sessionId, e);
@@ -125,16 +290,17 @@ public class WorkflowEngine {
         }
     }
 
-    @Transactional(readOnly = true)
     public WorkflowTransitionResponse getWorkflowStatus(String sessionId) {
         log.info("Getting workflow status for session: {}", sessionId);
         
         try {
-            WorkflowState state = stateRepository.findBySessionId(sessionId)
+            WorkflowState state = sessionStore.find(sessionId)
                     .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
             
-            WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
-            return workflow.getStepConfig(state.getCurrentStep(), state.getUserData());
+            synchronized (state) {
+                WorkflowDefinition workflow = workflowDefinitions.getWorkflow(state.getWorkflowType());
+                return workflow.getStepConfig(state.getCurrentStep(), state.getUserData());
+            }
             
         } catch (RuntimeException e) {
             log.error("Error getting workflow status for session: {}", sessionId, e);
@@ -145,16 +311,22 @@ public class WorkflowEngine {
         }
     }
 
-    @Transactional
     public void abandonWorkflow(String sessionId) {
         log.info("Abandoning workflow for session: {}", sessionId);
         
         try {
-            WorkflowState state = stateRepository.findBySessionId(sessionId)
+            WorkflowState state = sessionStore.find(sessionId)
                     .orElseThrow(() -> new RuntimeException("Workflow session not found: " + sessionId));
             
-            state.setStatus(WorkflowState.WorkflowStatus.ABANDONED);
-            stateRepository.save(state);
+            synchronized (state) {
+                WorkflowState.WorkflowStatus statusBefore = state.getStatus();
+                state.setStatus(WorkflowState.WorkflowStatus.ABANDONED);
+                sessionStore.append(state, eventLog.next(state, WorkflowEvent.EventType.ABANDON,
+                        state.getCurrentStep(), null, null));
+                snapshotIfDue(state, statusBefore);
+                statusCounts.changed(state.getWorkflowType(), statusBefore, state.getStatus());
+                funnel.record(state.getWorkflowType(), state.getCurrentStep(), WorkflowFunnelMetrics.ABANDONED);
+            }
             
             log.info("Successfully abandoned workflow for session: {}", sessionId);
             
@@ -162,4 +334,79 @@ public class WorkflowEngine {
             log.error("Error abandoning workflow for session: {}", sessionId, e);
         }
     }
+
+    // Caller holds the state's monitor
+    private void record(WorkflowState state, WorkflowState.WorkflowStatus statusBefore, WorkflowEvent.EventType type,
+                        String step, Map<String, Object> formData, String idempotencyKey) {
+        sessionStore.append(state, eventLog.next(state, type, step, formData, idempotencyKey));
+        snapshotIfDue(state, statusBefore);
+    }
+
+    // A status change is written right away: the reaper and the status counts read the
+    // status from the table, and a completed or abandoned session has no later event that
+    // would bring a snapshot
+    private void snapshotIfDue(WorkflowState state, WorkflowState.WorkflowStatus statusBefore) {
+        if (state.getStatus() != statusBefore) {
+            state.setEventsSinceSnapshot(0);
+            saveSnapshot(state);
+        } else if (eventLog.snapshotDue(state)) {
+            saveSnapshot(state);
+        }
+    }
+
+    private void saveSnapshot(WorkflowState state) {
+        try {
+            sessionStore.save(state);
+        } catch (OptimisticLockingFailureException e) {
+            // The events are already stored; the next snapshot will include them
+            log.debug("Snapshot of session {} skipped, row changed concurrently", state.getSessionId());
+        }
+    }
+
+    // Steps only change the maps and fields copied here
+    private static WorkflowState scratchCopyOf(WorkflowState state) {
+        WorkflowState copy = new WorkflowState();
+        copy.setSessionId(state.getSessionId());
+        copy.setWorkflowType(state.getWorkflowType());
+        copy.setCurrentStep(state.getCurrentStep());
+        copy.setUserData(new HashMap<>(state.getUserData()));
+        copy.setContext(new HashMap<>(state.getContext()));
+        copy.setNavigationHistory(new HashMap<>(state.getNavigationHistory()));
+        copy.setStatus(state.getStatus());
+        return copy;
+    }
+
+    private static WorkflowTransitionResponse batchFailure(WorkflowTransitionResponse failure, int index, String step) {
+        Map<String, Object> data = new HashMap<>();
+        if (failure.getData() != null) {
+            data.putAll(failure.getData());
+        }
+        data.put("failedStepIndex", index);
+        data.put("failedStep", step);
+        return WorkflowTransitionResponse.builder()
+                .status(failure.getStatus())
+                .message("Step " + (index + 1) + " (" + step + ") failed: " + failure.getMessage())
+                .validation(failure.getValidation())
+                .stepId(step)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * Runs a read-modify-write of a session, starting over from a fresh read when another
+     * writer got there first: the snapshot's version changed, or an event with the same
+     * sequence number was stored (unique per session). No row locks are taken.
+     */
+    private WorkflowTransitionResponse retryOnConflict(String sessionId, Supplier<WorkflowTransitionResponse> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_CONFLICT_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Concurrent update of session {}, retrying (attempt {})", sessionId, attempt + 1);
+            }
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.WorkflowEvent;
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.repository.WorkflowEventRepository;
+import com.trex.workflowservice.workflow.WorkflowDefinition;
+import com.trex.workflowservice.workflow.WorkflowDefinitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds workflow sessions from their snapshot (the workflow_states row) and the
+ * workflow_events appended after it, and decides when a session is due a new snapshot.
+ *
+ * Events are replayed through the same {@link WorkflowDefinition} methods that produced
+ * them, so the definitions must stay deterministic for a given state and input.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkflowEventLog {
+
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowDefinitions workflowDefinitions;
+
+    @Value("${workflow.events.snapshot-every:10}")
+    private int snapshotEvery;
+
+    /**
+     * Applies the events recorded after the snapshot to it, in place.
+     */
+    public WorkflowState replay(WorkflowState snapshot) {
+        List<WorkflowEvent> tail = eventRepository.findTail(
+                snapshot.getSessionId(), snapshot.getCreatedAt(), snapshot.getEventSequence());
+        if (tail.isEmpty()) {
+            return snapshot;
+        }
+
+        WorkflowDefinition workflow = workflowDefinitions.getWorkflow(snapshot.getWorkflowType());
+        for (WorkflowEvent event : tail) {
+            switch (event.getType()) {
+                case TRANSITION -> workflow.processTransition(snapshot, event.getStep(), event.getFormData());
+                case BACK -> workflow.processBack(snapshot, event.getStep());
+                case ABANDON -> snapshot.setStatus(WorkflowState.WorkflowStatus.ABANDONED);
+            }
+            snapshot.setEventSequence(event.getSequence());
+            snapshot.setLastIdempotencyKey(event.getIdempotencyKey());
+        }
+        snapshot.setEventsSinceSnapshot(tail.size());
+        log.debug("Replayed {} events for session {} up to sequence {}",
+                tail.size(), snapshot.getSessionId(), snapshot.getEventSequence());
+        return snapshot;
+    }
+
+    /**
+     * Numbers the next event of the session and builds it. The caller holds the state's
+     * monitor and has already applied the step to it.
+     */
+    public WorkflowEvent next(WorkflowState state, WorkflowEvent.EventType type, String step,
+                              Map<String, Object> formData, String idempotencyKey) {
+        state.setEventSequence(state.getEventSequence() + 1);
+        state.setEventsSinceSnapshot(state.getEventsSinceSnapshot() + 1);
+        state.setLastIdempotencyKey(idempotencyKey);
+        WorkflowEvent event = WorkflowEvent.of(state, type, step, formData);
+        event.setIdempotencyKey(idempotencyKey);
+        return event;
+    }
+
+    /**
+     * Whether enough events have piled up since the session's last snapshot to write a
+     * new one; resets the count if so.
+     */
+    public boolean snapshotDue(WorkflowState state) {
+        if (state.getEventsSinceSnapshot() < snapshotEvery) {
+            return false;
+        }
+        state.setEventsSinceSnapshot(0);
+        return true;
+    }
+}
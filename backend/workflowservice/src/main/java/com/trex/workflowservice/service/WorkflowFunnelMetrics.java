@@ -0,0 +1,146 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Funnel counters: how many times each workflow step was left, and how (outcome).
+ *
+ * Counting is a {@link LongAdder} increment, so request threads never contend on a
+ * shared counter. Every counter is exported as the Micrometer counter
+ * workflow.funnel{workflow,step,outcome}; summing it over instances gives the fleet-wide
+ * funnel. The increments since the last flush are also added to the hourly rows of
+ * workflow_funnel_rollups, which every instance adds to, for historical views.
+ */
+@Component
+@Slf4j
+public class WorkflowFunnelMetrics {
+
+    public static final String STARTED = "started";
+    public static final String BACK = "back";
+    public static final String ABANDONED = "abandoned";
+
+    // Types and steps come from requests; past this many tracked keys new ones count as "other"
+    private static final int MAX_TRACKED = 2_000;
+    private static final String OTHER = "other";
+    // Widths of the workflow_funnel_rollups columns; one longer value would fail the whole flush
+    private static final int MAX_LABEL_LENGTH = 255;
+    private static final int MAX_OUTCOME_LENGTH = 30;
+
+    private static final String ADD_ROLLUP = """
+        INSERT INTO workflow_funnel_rollups (bucket_start, workflow_type, step, outcome, count)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (bucket_start, workflow_type, step, outcome)
+        DO UPDATE SET count = workflow_funnel_rollups.count + EXCLUDED.count
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<FunnelKey, Tally> counters = new ConcurrentHashMap<>();
+
+    public WorkflowFunnelMetrics(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String workflowType, String step, WorkflowTransitionResponse response) {
+        record(workflowType, step, response.getStatus() != null
+            ? response.getStatus().name()
+            : WorkflowTransitionResponse.ResponseStatus.SUCCESS.name());
+    }
+
+    public void record(String workflowType, String step, String outcome) {
+        FunnelKey key = new FunnelKey(label(workflowType), label(step),
+            truncate(outcome.toLowerCase(Locale.ROOT), MAX_OUTCOME_LENGTH));
+        Tally counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_TRACKED) {
+                key = new FunnelKey(OTHER, OTHER, key.outcome());
+            }
+            counter = counters.computeIfAbsent(key, this::register);
+        }
+        counter.count.increment();
+    }
+
+    /**
+     * Adds the increments since the last flush to the current hour's rollup rows. A failed
+     * flush leaves them for the next one.
+     */
+    @Scheduled(initialDelayString = "${workflow.funnel.flush-interval-ms:60000}",
+               fixedDelayString = "${workflow.funnel.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        Timestamp bucket = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+        List<Map.Entry<FunnelKey, Long>> deltas = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.count.sum() - counter.flushed;
+            if (delta > 0) {
+                deltas.add(Map.entry(key, delta));
+                rows.add(new Object[] {bucket, key.workflowType(), key.step(), key.outcome(), delta});
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(ADD_ROLLUP, rows);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} workflow funnel counters: {}", rows.size(), e.getMessage());
+            return;
+        }
+        for (Map.Entry<FunnelKey, Long> delta : deltas) {
+            counters.get(delta.getKey()).flushed += delta.getValue();
+        }
+        log.debug("Flushed {} workflow funnel counters", rows.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private Tally register(FunnelKey key) {
+        Tally counter = new Tally();
+        FunctionCounter.builder("workflow.funnel", counter.count, LongAdder::sum)
+            .tag("workflow", key.workflowType())
+            .tag("step", key.step())
+            .tag("outcome", key.outcome())
+            .register(meterRegistry);
+        return counter;
+    }
+
+    private static String label(String value) {
+        return value == null || value.isBlank() ? "unknown" : truncate(value, MAX_LABEL_LENGTH);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private record FunnelKey(String workflowType, String step, String outcome) {
+    }
+
+    private static final class Tally {
+        final LongAdder count = new LongAdder();
+        // Only touched by flush(), which is synchronized
+        long flushed;
+    }
+}
@@ -0,0 +1,50 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.WorkflowEvent;
+import com.trex.workflowservice.model.WorkflowState;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where {@link WorkflowEngine} keeps workflow sessions.
+ *
+ * Selected with workflow.session-store.type: "jpa" (default) reads and writes the
+ * database on every call, "memory" serves sessions from memory and writes them behind
+ * in batches. States returned by {@link #find} may be shared between requests of the
+ * same session, so callers mutate them while holding the state's monitor and call
+ * {@link #save} afterwards.
+ *
+ * A session is stored as a snapshot plus the events appended after it: steps are
+ * recorded with {@link #append}, and {@link #save} writes a new snapshot. Sessions read
+ * from the database are rebuilt with {@link WorkflowEventLog#replay}.
+ */
+public interface WorkflowSessionStore {
+
+    Optional<WorkflowState> find(String sessionId);
+
+    /**
+     * Writes the state as the session's snapshot.
+     */
+    void save(WorkflowState state);
+
+    /**
+     * Records a step already applied to the state.
+     */
+    void append(WorkflowState state, WorkflowEvent event);
+
+    /**
+     * Records several steps already applied to the state, all or none.
+     */
+    default void appendAll(WorkflowState state, List<WorkflowEvent> events) {
+        for (WorkflowEvent event : events) {
+            append(state, event);
+        }
+    }
+
+    /**
+     * Writes any pending changes to the database.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,162 @@
+package com.trex.workflowservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Daily created_at partitions of workflow_states and workflow_events.
+ *
+ * Sessions can be resumed for workflow.partitioning.session-lifetime after they start;
+ * {@link #activeSince()} is the lower created_at bound every session query uses, so
+ * Postgres only scans the partitions of that window.
+ *
+ * With partitioning enabled (the default; migration V8 partitions the tables), a scheduled job
+ * creates the partitions for the coming days and drops those entirely older than the
+ * retention period. Retention is a DROP TABLE per day instead of a DELETE per row.
+ * Each run holds a transaction-scoped advisory lock, so only one instance does the work.
+ * New workflow_events partitions get their own unique (session_id, sequence) index. Rows
+ * that landed in the default partition (maintenance fell behind) move to their day's
+ * partition when it is created.
+ */
+@Component
+@Slf4j
+public class WorkflowStatePartitions {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("workflow_states", "workflow_events");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})");
+    private static final long LOCK_KEY = 0x7472657870617274L; // "trexpart"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration sessionLifetime;
+    private final boolean enabled;
+    private final int precreateDays;
+    private final Duration retention;
+
+    public WorkflowStatePartitions(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${workflow.partitioning.session-lifetime:P7D}") Duration sessionLifetime,
+            @Value("${workflow.partitioning.enabled:false}") boolean enabled,
+            @Value("${workflow.partitioning.precreate-days:3}") int precreateDays,
+            @Value("${workflow.partitioning.retention:P30D}") Duration retention) {
+        if (retention.compareTo(sessionLifetime) < 0) {
+            throw new IllegalArgumentException("workflow.partitioning.retention must not be shorter than the session lifetime");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionLifetime = sessionLifetime;
+        this.enabled = enabled;
+        this.precreateDays = precreateDays;
+        this.retention = retention;
+    }
+
+    /**
+     * Oldest creation time of a session that can still be resumed.
+     */
+    public LocalDateTime activeSince() {
+        return LocalDateTime.now().minus(sessionLifetime);
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.partitioning.maintenance-interval-ms:3600000}", initialDelay = 30000)
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    return; // Another instance is on it
+                }
+                LocalDate today = LocalDate.now();
+                LocalDate dropBefore = LocalDateTime.now().minus(retention).toLocalDate();
+                for (String table : PARTITIONED_TABLES) {
+                    createPartitions(table, today);
+                    dropPartitions(table, dropBefore);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Workflow partition maintenance failed", e);
+        }
+    }
+
+    private void createPartitions(String table, LocalDate today) {
+        for (int i = 0; i <= precreateDays; i++) {
+            LocalDate day = today.plusDays(i);
+            String partition = table + "_p" + day.format(SUFFIX);
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+            if (Boolean.TRUE.equals(exists)) {
+                continue;
+            }
+            String range = "FROM ('" + day + "') TO ('" + day.plusDays(1) + "')";
+            String inRange = "created_at >= '" + day + "' AND created_at < '" + day.plusDays(1) + "'";
+            String defaultPartition = table + "_default";
+            Boolean inDefault = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + defaultPartition + " WHERE " + inRange + ")", Boolean.class);
+            if (!Boolean.TRUE.equals(inDefault)) {
+                jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table + " FOR VALUES " + range);
+                addSessionSequenceKey(table, partition);
+                continue;
+            }
+
+            // Postgres refuses a partition whose rows already sit in the default partition:
+            // take the default out, create the day, move its rows over and put it back
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + defaultPartition);
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table + " FOR VALUES " + range);
+            addSessionSequenceKey(table, partition);
+            int moved = jdbcTemplate.update(
+                "INSERT INTO " + partition + " SELECT * FROM " + defaultPartition + " WHERE " + inRange);
+            jdbcTemplate.update("DELETE FROM " + defaultPartition + " WHERE " + inRange);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + defaultPartition + " DEFAULT");
+            log.warn("Moved {} rows of {} from {} into the new partition {}", moved, day, defaultPartition, partition);
+        }
+    }
+
+    // The parent can't enforce this: its unique keys must include created_at
+    private void addSessionSequenceKey(String table, String partition) {
+        if ("workflow_events".equals(table)) {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + partition + "_session_sequence ON "
+                + partition + " (session_id, sequence)");
+        }
+    }
+
+    // Drops partitions whose upper bound is on or before the cutoff; the default partition
+    // has no bound and is kept
+    private void dropPartitions(String table, LocalDate dropBefore) {
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = ?::regclass", table);
+        for (Map<String, Object> partition : partitions) {
+            Matcher bound = UPPER_BOUND.matcher(String.valueOf(partition.get("bound")));
+            if (bound.find() && !LocalDate.parse(bound.group(1)).isAfter(dropBefore)) {
+                String name = (String) partition.get("name");
+                if ("workflow_states".equals(table)) {
+                    // Its sessions leave the status counts with it, in the same transaction
+                    jdbcTemplate.update("INSERT INTO workflow_status_counts (workflow_type, status, count, updated_at) " +
+                        "SELECT workflow_type, status, -count(*), CURRENT_TIMESTAMP FROM " + name +
+                        " WHERE status IS NOT NULL GROUP BY workflow_type, status " +
+                        "ON CONFLICT (workflow_type, status) " +
+                        "DO UPDATE SET count = workflow_status_counts.count + EXCLUDED.count, updated_at = EXCLUDED.updated_at");
+                }
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped workflow partition {} (retention {})", name, retention);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.trex.workflowservice.service;
+
+import com.trex.workflowservice.model.WorkflowState;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of workflow sessions per workflow type and status, kept in the small
+ * workflow_status_counts table so dashboards and health checks never count
+ * workflow_states.
+ *
+ * Status changes made by the application (start, completion, abandon, a token-mode
+ * session being stored) are recorded here as deltas and added to the table by a
+ * scheduled flush, like session writes themselves. Bulk changes made in SQL (the stale
+ * session reaper, partition retention) adjust the table in the same statement or
+ * transaction. Reads add this instance's unflushed deltas to the table.
+ *
+ * Deltas not flushed before a crash, and in-memory changes whose session write is
+ * later rejected as a conflict, are lost, so the counts can drift slightly; they are
+ * meant for dashboards, not billing.
+ */
+@Component
+@Slf4j
+public class WorkflowStatusCounts implements HealthIndicator {
+
+    /**
+     * Adds a delta to a (workflow_type, status) row; for use in other statements as well.
+     */
+    public static final String ADD_COUNT = """
+        INSERT INTO workflow_status_counts (workflow_type, status, count, updated_at)
+        VALUES (?, ?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (workflow_type, status)
+        DO UPDATE SET count = workflow_status_counts.count + EXCLUDED.count, updated_at = EXCLUDED.updated_at
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Key, Delta> deltas = new ConcurrentHashMap<>();
+
+    public WorkflowStatusCounts(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records a session changing status; from is null for a new session.
+     */
+    public void changed(String workflowType, WorkflowState.WorkflowStatus from, WorkflowState.WorkflowStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            delta(workflowType, from).count.decrement();
+        }
+        if (to != null) {
+            delta(workflowType, to).count.increment();
+        }
+    }
+
+    /**
+     * Sessions per workflow type and status.
+     */
+    public Map<String, Map<String, Long>> counts() {
+        Map<String, Map<String, Long>> counts = new TreeMap<>();
+        jdbcTemplate.query("SELECT workflow_type, status, count FROM workflow_status_counts", rs -> {
+            counts.computeIfAbsent(rs.getString(1), t -> new TreeMap<>()).put(rs.getString(2), rs.getLong(3));
+        });
+        deltas.forEach((key, delta) -> {
+            long pending = delta.count.sum() - delta.flushed;
+            if (pending != 0) {
+                counts.computeIfAbsent(key.workflowType(), t -> new TreeMap<>())
+                      .merge(key.status().name(), pending, Long::sum);
+            }
+        });
+        return counts;
+    }
+
+    public long count(String workflowType, WorkflowState.WorkflowStatus status) {
+        List<Long> stored = jdbcTemplate.queryForList(
+            "SELECT count FROM workflow_status_counts WHERE workflow_type = ? AND status = ?",
+            Long.class, workflowType, status.name());
+        Delta delta = deltas.get(new Key(workflowType, status));
+        long pending = delta != null ? delta.count.sum() - delta.flushed : 0;
+        return (stored.isEmpty() ? 0 : stored.get(0)) + pending;
+    }
+
+    @Scheduled(initialDelayString = "${workflow.status-counts.flush-interval-ms:5000}",
+               fixedDelayString = "${workflow.status-counts.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Map.Entry<Delta, Long>> flushed = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            long pending = delta.count.sum() - delta.flushed;
+            if (pending != 0) {
+                flushed.add(Map.entry(delta, pending));
+                rows.add(new Object[] {key.workflowType(), key.status().name(), pending});
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(ADD_COUNT, rows);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} workflow status count deltas: {}", rows.size(), e.getMessage());
+            return;
+        }
+        for (Map.Entry<Delta, Long> entry : flushed) {
+            entry.getKey().flushed += entry.getValue();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public Health health() {
+        try {
+            return Health.up().withDetails(counts()).build();
+        } catch (RuntimeException e) {
+            return Health.unknown().withException(e).build();
+        }
+    }
+
+    private Delta delta(String workflowType, WorkflowState.WorkflowStatus status) {
+        return deltas.computeIfAbsent(new Key(workflowType, status), k -> new Delta());
+    }
+
+    private record Key(String workflowType, WorkflowState.WorkflowStatus status) {
+    }
+
+    private static final class Delta {
+        final LongAdder count = new LongAdder();
+        // Written only by flush(), which is synchronized; read by counts()
+        volatile long flushed;
+    }
+}
@@ -0,0 +1,226 @@
+package com.trex.workflowservice.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trex.workflowservice.model.WorkflowState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a workflow session into a self-contained token and back, for sessions that are
+ * not stored (see {@link StatelessWorkflowService}).
+ *
+ * A token is {@code base64url(deflate(json)) "." base64url(HMAC-SHA256)}; the JSON holds
+ * the session id, workflow type, current step, status, user data and issue time. Tokens
+ * signed with workflow.token.previous-secret are still accepted, so the secret can be
+ * rotated without cutting off running sessions. Tokens older than max-age are rejected.
+ *
+ * Secrets must be at least {@value #MIN_SECRET_BYTES} bytes. Startup fails without one
+ * unless workflow.token.allow-random-secret is set (the "dev" profile does), in which case
+ * the instance signs with a random key that no other instance or restart accepts.
+ */
+@Component
+@Slf4j
+public class WorkflowTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // The HMAC-SHA256 output size; shorter keys are within reach of offline guessing
+    static final int MIN_SECRET_BYTES = 32;
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final List<SecretKeySpec> keys;
+    private final Duration maxAge;
+    private final int maxPayloadBytes;
+
+    public WorkflowTokenCodec(
+            ObjectMapper objectMapper,
+            @Value("${workflow.token.secret:}") String secret,
+            @Value("${workflow.token.previous-secret:}") String previousSecret,
+            @Value("${workflow.token.max-age:P1D}") Duration maxAge,
+            @Value("${workflow.token.max-payload-bytes:16384}") int maxPayloadBytes,
+            @Value("${workflow.token.allow-random-secret:false}") boolean allowRandomSecret) {
+        this.objectMapper = objectMapper;
+        this.maxAge = maxAge;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.keys = new ArrayList<>();
+        if (secret.isBlank()) {
+            if (!allowRandomSecret) {
+                throw new IllegalArgumentException("workflow.token.secret (WORKFLOW_TOKEN_SECRET) must be set; "
+                    + "only the dev profile may run without one");
+            }
+            // Fine for a single instance; tokens won't survive a restart or validate elsewhere
+            log.warn("workflow.token.secret is not set; signing workflow tokens with a random per-instance key");
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            keys.add(new SecretKeySpec(random, ALGORITHM));
+        } else {
+            keys.add(key("workflow.token.secret", secret));
+        }
+        if (!previousSecret.isBlank()) {
+            keys.add(key("workflow.token.previous-secret", previousSecret));
+        }
+    }
+
+    /**
+     * Encodes the session, or returns empty if it has grown too large to carry in a token.
+     */
+    public Optional<String> encode(WorkflowState state) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("i", state.getSessionId());
+        payload.put("t", state.getWorkflowType());
+        payload.put("s", state.getCurrentStep());
+        payload.put("st", state.getStatus().name());
+        payload.put("u", state.getUserData());
+        payload.put("c", state.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        payload.put("iat", Instant.now().getEpochSecond());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            if (json.length > maxPayloadBytes) {
+                return Optional.empty();
+            }
+            String body = ENCODER.encodeToString(deflate(json));
+            return Optional.of(body + "." + ENCODER.encodeToString(sign(keys.get(0), body)));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encode workflow token", e);
+        }
+    }
+
+    /**
+     * Verifies the token and rebuilds the session from it.
+     *
+     * @throws InvalidTokenException if the token is malformed, forged or expired
+     */
+    public WorkflowState decode(String token) {
+        int dot = token != null ? token.indexOf('.') : -1;
+        if (dot <= 0) {
+            throw new InvalidTokenException("Malformed workflow token");
+        }
+        String body = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!verify(body, signature)) {
+                throw new InvalidTokenException("Invalid workflow token signature");
+            }
+            Map<String, Object> payload = objectMapper.readValue(inflate(DECODER.decode(body)), PAYLOAD_TYPE);
+            long issuedAt = ((Number) payload.get("iat")).longValue();
+            if (Instant.ofEpochSecond(issuedAt).plus(maxAge).isBefore(Instant.now())) {
+                throw new InvalidTokenException("Workflow token expired");
+            }
+
+            WorkflowState state = new WorkflowState();
+            state.setSessionId((String) payload.get("i"));
+            state.setWorkflowType((String) payload.get("t"));
+            state.setCurrentStep((String) payload.get("s"));
+            state.setStatus(WorkflowState.WorkflowStatus.valueOf((String) payload.get("st")));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> userData = (Map<String, Object>) payload.get("u");
+            state.setUserData(userData != null ? new HashMap<>(userData) : new HashMap<>());
+            state.setContext(new HashMap<>());
+            state.setNavigationHistory(new HashMap<>());
+            state.setCreatedAt(LocalDateTime.ofEpochSecond(((Number) payload.get("c")).longValue(), 0, ZoneOffset.UTC));
+            return state;
+        } catch (InvalidTokenException e) {
+            throw e;
+        } catch (IOException | GeneralSecurityException | DataFormatException | RuntimeException e) {
+            throw new InvalidTokenException("Malformed workflow token");
+        }
+    }
+
+    private static SecretKeySpec key(String property, String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException(property + " must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    private boolean verify(String body, byte[] signature) throws GeneralSecurityException {
+        for (SecretKeySpec key : keys) {
+            if (MessageDigest.isEqual(sign(key, body), signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] sign(SecretKeySpec key, String body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Bounded, so a small token can't expand into an arbitrarily large payload
+    private byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated workflow token");
+                }
+                out.write(buffer, 0, n);
+                if (out.size() > maxPayloadBytes) {
+                    throw new DataFormatException("Workflow token payload too large");
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public static class InvalidTokenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public InvalidTokenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.trex.workflowservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trex.workflowservice.model.WorkflowEvent;
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.repository.WorkflowEventRepository;
+import com.trex.workflowservice.repository.WorkflowStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Session store for sticky-session deployments ("memory"): sessions live in a bounded
+ * in-memory map and are written to workflow_states behind the request, in batches.
+ *
+ * Reads go to the database only on a miss (a new instance, or a session idle for longer
+ * than the expiry), rebuilding the session from its snapshot and event tail. Appended
+ * events are queued and saves just mark the session dirty; a scheduled flush first
+ * inserts the queued events in batches, then writes detached copies of the dirty
+ * sessions, so Hibernate never touches the live objects requests are working on. A
+ * session evicted before its flush is still found, since the pending maps hold it
+ * independently of the cache.
+ *
+ * A write that fails on a row itself (a duplicate event sequence, a value too long) is
+ * retried one row at a time; rows that still fail are moved to
+ * workflow_event_dead_letters and their session dropped from memory, so one bad row
+ * never holds back the other sessions' writes. Other failures (the database being
+ * unreachable) keep everything queued for the next flush.
+ *
+ * Sessions are per instance: with more than one instance, requests of a session must
+ * be routed to the same one (sticky sessions), otherwise use the default "jpa" store.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.session-store.type", havingValue = "memory")
+@Slf4j
+public class WriteBehindWorkflowSessionStore implements WorkflowSessionStore {
+
+    private final WorkflowStateRepository stateRepository;
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowEventLog eventLog;
+    private final WorkflowStatePartitions partitions;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Counter deadLettered;
+
+    private final Cache<String, WorkflowState> sessions;
+    private final Map<String, WorkflowState> dirty = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<WorkflowEvent> events = new ConcurrentLinkedDeque<>();
+    // Sessions with events still in the queue
+    private final Map<String, WorkflowState> unflushed = new ConcurrentHashMap<>();
+
+    public WriteBehindWorkflowSessionStore(
+            WorkflowStateRepository stateRepository,
+            WorkflowEventRepository eventRepository,
+            WorkflowEventLog eventLog,
+            WorkflowStatePartitions partitions,
+            TransactionTemplate transactionTemplate,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${workflow.session-store.max-sessions:100000}") long maxSessions,
+            @Value("${workflow.session-store.idle-timeout:PT30M}") Duration idleTimeout,
+            @Value("${workflow.session-store.batch-size:200}") int batchSize) {
+        this.stateRepository = stateRepository;
+        this.eventRepository = eventRepository;
+        this.eventLog = eventLog;
+        this.partitions = partitions;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.deadLettered = Counter.builder("workflow.events.dead_lettered")
+                .description("Workflow events that could not be written and were moved to workflow_event_dead_letters")
+                .register(meterRegistry);
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "workflowSessions");
+        Gauge.builder("workflow.sessions.dirty", dirty, Map::size).register(meterRegistry);
+        Gauge.builder("workflow.events.pending", events, ConcurrentLinkedDeque::size).register(meterRegistry);
+    }
+
+    @Override
+    public Optional<WorkflowState> find(String sessionId) {
+        WorkflowState state = sessions.getIfPresent(sessionId);
+        if (state == null) {
+            state = dirty.get(sessionId);
+        }
+        if (state == null) {
+            state = unflushed.get(sessionId);
+        }
+        if (state == null) {
+            Optional<WorkflowState> loaded = stateRepository.findBySessionId(sessionId, partitions.activeSince()).map(eventLog::replay);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            // Concurrent misses for one session must end up sharing a single object
+            state = sessions.asMap().putIfAbsent(sessionId, loaded.get());
+            return Optional.of(state != null ? state : loaded.get());
+        }
+        sessions.put(sessionId, state);
+        return Optional.of(state);
+    }
+
+    @Override
+    public void save(WorkflowState state) {
+        sessions.put(state.getSessionId(), state);
+        dirty.put(state.getSessionId(), state);
+    }
+
+    @Override
+    public void append(WorkflowState state, WorkflowEvent event) {
+        sessions.put(state.getSessionId(), state);
+        unflushed.put(state.getSessionId(), state);
+        events.add(event);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${workflow.session-store.flush-interval-ms:500}")
+    public synchronized void flush() {
+        // Events go first: a snapshot is written only once the events it includes are stored
+        if (flushEvents()) {
+            flushStates();
+        }
+    }
+
+    private boolean flushEvents() {
+        // Only what was queued when the flush started, so busy appenders can't keep it going
+        int remaining = events.size();
+        while (remaining > 0) {
+            List<WorkflowEvent> batch = new ArrayList<>(Math.min(batchSize, remaining));
+            WorkflowEvent event;
+            while (batch.size() < batchSize && remaining > 0 && (event = events.poll()) != null) {
+                batch.add(event);
+                remaining--;
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> eventRepository.saveAll(batch));
+                written(batch);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Failed to write {} workflow events as a batch, writing them one at a time: {}",
+                        batch.size(), e.getMostSpecificCause().getMessage());
+                if (!writeEventsIndividually(batch)) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                requeueEvents(batch);
+                log.error("Failed to write {} workflow events, will retry", batch.size(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes each event in its own transaction, dead-lettering the ones the database
+     * rejects. Returns false, with the unwritten events queued again, if the database
+     * fails for another reason.
+     */
+    private boolean writeEventsIndividually(List<WorkflowEvent> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            WorkflowEvent event = batch.get(i);
+            // Ids were allocated for the failed batch
+            event.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> eventRepository.save(event));
+                written(List.of(event));
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(event, e);
+            } catch (RuntimeException e) {
+                requeueEvents(batch.subList(i, batch.size()));
+                log.error("Failed to write workflow event {}#{}, will retry", event.getSessionId(), event.getSequence(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A session stays pending while it has numbered events past the ones written
+    private void written(List<WorkflowEvent> batch) {
+        for (WorkflowEvent written : batch) {
+            unflushed.computeIfPresent(written.getSessionId(),
+                    (id, state) -> state.getEventSequence() <= written.getSequence() ? null : state);
+        }
+    }
+
+    private void requeueEvents(List<WorkflowEvent> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            batch.get(i).setId(null);
+            events.addFirst(batch.get(i));
+        }
+    }
+
+    /**
+     * Keeps a rejected event for inspection and drops its session from memory: the
+     * session no longer matches its stored event log, so it is rebuilt from the
+     * database on its next request rather than snapshotted.
+     */
+    private void deadLetter(WorkflowEvent event, DataIntegrityViolationException cause) {
+        deadLettered.increment();
+        String reason = cause.getMostSpecificCause().getMessage();
+        log.error("Workflow event {}#{} ({} at step {}) was rejected and dead-lettered: {}",
+                event.getSessionId(), event.getSequence(), event.getType(), event.getStep(), reason);
+        try {
+            jdbcTemplate.update(
+                "INSERT INTO workflow_event_dead_letters "
+                    + "(session_id, sequence, type, step, form_data, idempotency_key, error, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)",
+                event.getSessionId(), event.getSequence(), String.valueOf(event.getType()), event.getStep(),
+                objectMapper.writeValueAsString(event.getFormData()), event.getIdempotencyKey(), reason);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Could not store dead-lettered workflow event {}#{}: {}",
+                    event.getSessionId(), event.getSequence(), e.getMessage());
+        }
+        drop(event.getSessionId());
+    }
+
+    private void drop(String sessionId) {
+        sessions.invalidate(sessionId);
+        dirty.remove(sessionId);
+        unflushed.remove(sessionId);
+    }
+
+    private void flushStates() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int written = 0;
+        Iterator<WorkflowState> pending = dirty.values().iterator();
+        while (pending.hasNext()) {
+            // Detach under each state's lock; it is removed from the dirty set first, so
+            // a change made while the batch is being written marks it dirty again
+            List<WorkflowState> originals = new ArrayList<>(batchSize);
+            List<WorkflowState> copies = new ArrayList<>(batchSize);
+            while (pending.hasNext() && originals.size() < batchSize) {
+                WorkflowState state = pending.next();
+                synchronized (state) {
+                    dirty.remove(state.getSessionId(), state);
+                    originals.add(state);
+                    copies.add(copyOf(state));
+                }
+            }
+
+            try {
+                written += write(originals, copies);
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Someone else changed one of the rows, or one is invalid; find out which by
+                // writing one at a time
+                written += writeIndividually(originals);
+            } catch (RuntimeException e) {
+                requeue(originals);
+                log.error("Failed to write {} workflow sessions, will retry", originals.size(), e);
+                return;
+            }
+        }
+        log.debug("Wrote {} workflow sessions in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int write(List<WorkflowState> originals, List<WorkflowState> copies) {
+        List<WorkflowState> saved = transactionTemplate.execute(status -> stateRepository.saveAll(copies));
+        for (int i = 0; i < originals.size(); i++) {
+            WorkflowState original = originals.get(i);
+            WorkflowState persisted = saved.get(i);
+            synchronized (original) {
+                original.setId(persisted.getId());
+                original.setVersion(persisted.getVersion());
+                original.setCreatedAt(persisted.getCreatedAt());
+                original.setUpdatedAt(persisted.getUpdatedAt());
+            }
+        }
+        return originals.size();
+    }
+
+    /**
+     * Writes each session in its own transaction. A session whose row was changed by
+     * another writer (e.g. abandoned by the reaper) is dropped from memory, so the next
+     * request rebuilds it from the database instead of overwriting the change; so is a
+     * session the database rejects, instead of being retried forever.
+     */
+    private int writeIndividually(List<WorkflowState> originals) {
+        int written = 0;
+        for (WorkflowState original : originals) {
+            WorkflowState copy;
+            synchronized (original) {
+                copy = copyOf(original);
+            }
+            try {
+                written += write(List.of(original), List.of(copy));
+            } catch (OptimisticLockingFailureException e) {
+                log.warn("Workflow session {} was changed concurrently; reloading it from the database",
+                        original.getSessionId());
+                sessions.asMap().remove(original.getSessionId(), original);
+                dirty.remove(original.getSessionId(), original);
+                unflushed.remove(original.getSessionId(), original);
+            } catch (DataIntegrityViolationException e) {
+                log.error("Workflow session {} was rejected by the database, dropping it from memory: {}",
+                        original.getSessionId(), e.getMostSpecificCause().getMessage());
+                sessions.asMap().remove(original.getSessionId(), original);
+                dirty.remove(original.getSessionId(), original);
+                unflushed.remove(original.getSessionId(), original);
+            } catch (RuntimeException e) {
+                requeue(List.of(original));
+                log.error("Failed to write workflow session {}, will retry", original.getSessionId(), e);
+            }
+        }
+        return written;
+    }
+
+    // Put them back for the next flush unless they were changed again meanwhile
+    private void requeue(List<WorkflowState> originals) {
+        for (WorkflowState original : originals) {
+            dirty.putIfAbsent(original.getSessionId(), original);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!dirty.isEmpty() || !events.isEmpty()) {
+            log.warn("{} workflow sessions and {} events could not be written before shutdown",
+                    dirty.size(), events.size());
+        }
+    }
+
+    private static WorkflowState copyOf(WorkflowState state) {
+        WorkflowState copy = new WorkflowState();
+        copy.setId(state.getId());
+        copy.setSessionId(state.getSessionId());
+        copy.setWorkflowType(state.getWorkflowType());
+        copy.setCurrentStep(state.getCurrentStep());
+        copy.setUserData(new HashMap<>(state.getUserData()));
+        copy.setContext(new HashMap<>(state.getContext()));
+        copy.setNavigationHistory(new HashMap<>(state.getNavigationHistory()));
+        copy.setStatus(state.getStatus());
+        copy.setEventSequence(state.getEventSequence());
+        copy.setLastIdempotencyKey(state.getLastIdempotencyKey());
+        copy.setVersion(state.getVersion());
+        copy.setCreatedAt(state.getCreatedAt());
+        copy.setUpdatedAt(state.getUpdatedAt());
+        return copy;
+    }
+}
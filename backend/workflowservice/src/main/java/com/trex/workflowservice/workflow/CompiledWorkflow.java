@@ -0,0 +1,227 @@
+package com.trex.workflowservice.workflow;
+
+import com.trex.workflowservice.model.WorkflowState;
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A {@link WorkflowModel} compiled into integer-indexed tables.
+ *
+ * Step ids are resolved to an index once per call; from there, next and previous steps,
+ * guards and completion are indexed lookups, and each step's response fields (component,
+ * numbering, back target, static data) are fixed in a {@link StepDescriptor} built here.
+ * Per call, only the response object carrying the session's data is allocated.
+ */
+@Slf4j
+public final class CompiledWorkflow implements WorkflowDefinition {
+
+    private static final int NONE = -1;
+
+    private final String workflowType;
+    private final Map<String, Integer> stepIndex;
+    private final StepDescriptor[] steps;
+    // Per step, the forward targets and their guards (null = always) in declaration order
+    private final int[][] targets;
+    // Lists rather than arrays, which can't have a generic element type
+    private final List<List<Predicate<Map<String, Object>>>> guards;
+    private final int[] previous;
+    private final boolean[] completes;
+    private final List<List<String>> dependencies;
+
+    CompiledWorkflow(WorkflowModel model) {
+        this.workflowType = model.getWorkflowType();
+        List<WorkflowModel.Step> declared = model.steps();
+        int count = declared.size();
+        if (count == 0) {
+            throw new IllegalStateException("Workflow " + workflowType + " has no steps");
+        }
+
+        stepIndex = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (stepIndex.put(declared.get(i).id(), i) != null) {
+                throw new IllegalStateException("Duplicate step " + declared.get(i).id() + " in workflow " + workflowType);
+            }
+        }
+
+        previous = new int[count];
+        Arrays.fill(previous, NONE);
+        for (WorkflowModel.Back back : model.backs()) {
+            previous[indexOf(back.from())] = indexOf(back.to());
+        }
+
+        List<List<WorkflowModel.Transition>> outgoing = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (WorkflowModel.Transition transition : model.transitions()) {
+            indexOf(transition.to());
+            outgoing.get(indexOf(transition.from())).add(transition);
+        }
+        targets = new int[count][];
+        guards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<WorkflowModel.Transition> out = outgoing.get(i);
+            targets[i] = new int[out.size()];
+            List<Predicate<Map<String, Object>>> outGuards = new ArrayList<>(out.size());
+            for (int t = 0; t < out.size(); t++) {
+                targets[i][t] = stepIndex.get(out.get(t).to());
+                outGuards.add(out.get(t).guard());
+            }
+            guards.add(outGuards);
+        }
+
+        completes = new boolean[count];
+        for (String stepId : model.completingSteps()) {
+            completes[indexOf(stepId)] = true;
+        }
+
+        dependencies = new ArrayList<>(Collections.nCopies(count, List.<String>of()));
+        model.prefetches().forEach((stepId, data) -> dependencies.set(indexOf(stepId), data));
+
+        steps = new StepDescriptor[count];
+        for (int i = 0; i < count; i++) {
+            WorkflowModel.Step step = declared.get(i);
+            steps[i] = new StepDescriptor(step.id(), step.componentName(), i + 1, count,
+                    previous[i] != NONE ? declared.get(previous[i]).id() : null, step.staticData());
+        }
+    }
+
+    private int indexOf(String stepId) {
+        Integer index = stepIndex.get(stepId);
+        if (index == null) {
+            throw new IllegalStateException("Unknown step " + stepId + " in workflow " + workflowType);
+        }
+        return index;
+    }
+
+    private int find(String stepId) {
+        Integer index = stepId != null ? stepIndex.get(stepId) : null;
+        return index != null ? index : NONE;
+    }
+
+    // First transition whose guard accepts the form data
+    private int next(int from, Map<String, Object> formData) {
+        int[] out = targets[from];
+        List<Predicate<Map<String, Object>>> outGuards = guards.get(from);
+        for (int t = 0; t < out.length; t++) {
+            Predicate<Map<String, Object>> guard = outGuards.get(t);
+            if (guard == null || guard.test(formData)) {
+                return out[t];
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    public String getWorkflowType() {
+        return workflowType;
+    }
+
+    @Override
+    public WorkflowState initializeState(String sessionId) {
+        WorkflowState state = new WorkflowState();
+        state.setSessionId(sessionId);
+        state.setWorkflowType(workflowType);
+        state.setCurrentStep(steps[0].stepId());
+        state.setUserData(new HashMap<>());
+        state.setContext(new HashMap<>());
+        state.setNavigationHistory(new HashMap<>());
+        state.setStatus(WorkflowState.WorkflowStatus.IN_PROGRESS);
+        state.setCreatedAt(LocalDateTime.now());
+
+        log.info("Initialized {} workflow for session: {}", workflowType, sessionId);
+        return state;
+    }
+
+    @Override
+    public WorkflowTransitionResponse getStepConfig(String stepId, Map<String, Object> context) {
+        int step = find(stepId);
+        if (step == NONE) {
+            return WorkflowTransitionResponse.builder()
+                    .status(WorkflowTransitionResponse.ResponseStatus.SYSTEM_ERROR)
+                    .message("Unknown step: " + stepId)
+                    .build();
+        }
+        return steps[step].response(context);
+    }
+
+    @Override
+    public List<String> getStepDependencies(String stepId) {
+        int step = find(stepId);
+        return step != NONE ? dependencies.get(step) : List.of();
+    }
+
+    @Override
+    public WorkflowTransitionResponse processTransition(WorkflowState state, String currentStep, Map<String, Object> formData) {
+        log.debug("Processing transition from step: {} with data: {}", currentStep, formData);
+
+        int from = find(currentStep);
+        int to = from != NONE ? next(from, formData) : NONE;
+        if (to == NONE) {
+            return WorkflowTransitionResponse.builder()
+                    .status(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR)
+                    .message("Invalid transition from step: " + currentStep)
+                    .build();
+        }
+
+        // Update state
+        Map<String, Object> userData = state.getUserData();
+        userData.putAll(formData);
+        state.setCurrentStep(steps[to].stepId());
+
+        // Add to navigation history
+        state.getNavigationHistory().put(currentStep, formData);
+
+        if (completes[to]) {
+            state.setStatus(WorkflowState.WorkflowStatus.COMPLETED);
+        }
+
+        return steps[to].response(userData);
+    }
+
+    @Override
+    public WorkflowTransitionResponse processBack(WorkflowState state, String currentStep) {
+        log.debug("Processing back navigation from step: {}", currentStep);
+
+        int from = find(currentStep);
+        int to = from != NONE ? previous[from] : NONE;
+        if (to == NONE) {
+            return WorkflowTransitionResponse.builder()
+                    .status(WorkflowTransitionResponse.ResponseStatus.BUSINESS_RULE_ERROR)
+                    .message("Cannot go back from step: " + currentStep)
+                    .build();
+        }
+
+        state.setCurrentStep(steps[to].stepId());
+        return steps[to].response(state.getUserData());
+    }
+
+    @Override
+    public boolean validateTransition(String fromStep, String toStep, Map<String, Object> formData) {
+        int from = find(fromStep);
+        int to = find(toStep);
+        return from != NONE && to != NONE && next(from, formData) == to;
+    }
+
+    @Override
+    public String getNextStep(String currentStep, Map<String, Object> formData) {
+        int from = find(currentStep);
+        int to = from != NONE ? next(from, formData) : NONE;
+        return to != NONE ? steps[to].stepId() : null;
+    }
+
+    @Override
+    public String getPreviousStep(String currentStep) {
+        int from = find(currentStep);
+        return from != NONE ? steps[from].previousStep() : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.trex.workflowservice.workflow;
+
+/**
+ * Names of the shared data a step can declare it needs (see
+ * {@link WorkflowModel.Builder#prefetch}). Responses moving to such a step carry the
+ * data under "prefetched", so the client doesn't have to request it separately.
+ */
+public final class StepData {
+
+    // GET /api/vehicles/filters
+    public static final String FILTERS = "filters";
+    // GET /api/vehicles/makes
+    public static final String MAKES = "makes";
+    // GET /api/vehicles/filter-counts without filters
+    public static final String FILTER_COUNTS = "filterCounts";
+
+    private StepData() {
+    }
+}
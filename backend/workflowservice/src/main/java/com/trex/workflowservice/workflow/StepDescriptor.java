@@ -0,0 +1,25 @@
+package com.trex.workflowservice.workflow;
+
+import com.trex.workflowservice.model.WorkflowTransitionResponse;
+
+import java.util.Map;
+
+/**
+ * Immutable response fields of one compiled workflow step. Step numbers are boxed once
+ * here rather than on every response.
+ *
+ * @param staticData data shown regardless of the session, or null to show the session's
+ */
+public record StepDescriptor(String stepId, String componentName, Integer stepNumber, Integer totalSteps,
+                             String previousStep, Map<String, Object> staticData) {
+
+    public boolean canGoBack() {
+        return previousStep != null;
+    }
+
+    public WorkflowTransitionResponse response(Map<String, Object> data) {
+        return new WorkflowTransitionResponse(stepId, componentName, staticData != null ? staticData : data,
+                null, null, previousStep, stepNumber, totalSteps, canGoBack(), null,
+                WorkflowTransitionResponse.ResponseStatus.SUCCESS);
+    }
+}
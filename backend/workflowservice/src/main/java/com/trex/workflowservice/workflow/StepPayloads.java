@@ -0,0 +1,278 @@
+package com.trex.workflowservice.workflow;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trex.workflowservice.dto.StepPayload;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static step responses served by WorkflowController, rendered once at startup with the
+ * application's ObjectMapper. Payloads are looked up by name; the names are the
+ * constants below.
+ */
+@Component
+public class StepPayloads {
+
+    public static final String START = "start";
+    public static final String STATUS = "status";
+    public static final String INTENT_SELECTION = "intent-selection";
+    public static final String VEHICLE_HELP_QUESTION = "vehicle-help-question";
+    public static final String VEHICLE_KNOWLEDGE = "vehicle-knowledge";
+    public static final String VEHICLE_SEARCH = "vehicle-search";
+    public static final String CARIN_ANALYTICS = "carin-analytics";
+    public static final String SEARCH_RESULTS = "search-results";
+    public static final String SEARCH_RESULTS_SUMMARY = "search-results-summary";
+    public static final String VEHICLE_PURCHASE_CONFIRMATION = "vehicle-purchase-confirmation";
+    public static final String HAS_BUYER = "has-buyer";
+    public static final String BUYER_TYPE = "buyer-type";
+    public static final String PRIVATE_BUYER = "private-buyer";
+    public static final String PRIVATE_BUYER_SUMMARY = "private-buyer-summary";
+    public static final String BUYING_CONFIRMATION = "buying-confirmation";
+
+    private final Map<String, StepPayload> payloads = new HashMap<>();
+
+    public StepPayloads(ObjectMapper objectMapper) {
+        register(objectMapper, START, Map.of(
+                "stepId", "intent-selection",
+                "componentName", "IntentSelection",
+                "data", Map.of(
+                    "message", "Do you want to buy, or sell a vehicle?",
+                    "options", Map.of(
+                        "buying", "I want to buy a vehicle",
+                        "selling", "I want to sell my vehicle"
+                    )
+                ),
+                "stepNumber", 1,
+                "totalSteps", "dynamic", // Steps vary based on user choices
+                "canGoBack", false,
+                "navigationOptions", Map.of(
+                    "canGoBack", false,
+                    "nextStepId", "dynamic"
+                ),
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, STATUS, Map.of(
+                "stepId", "intent-selection",
+                "componentName", "IntentSelection",
+                "data", Map.of("message", "What would you like to do today?"),
+                "stepNumber", 1,
+                "totalSteps", "dynamic",
+                "canGoBack", false,
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, INTENT_SELECTION, Map.of(
+                "stepId", "intent-selection",
+                "componentName", "IntentSelection",
+                "data", Map.of(
+                    "message", "What would you like to do today?",
+                    "options", Map.of(
+                        "buying", "I want to buy a vehicle",
+                        "selling", "I want to sell my vehicle"
+                    )
+                ),
+                "stepNumber", 1,
+                "totalSteps", "dynamic",
+                "canGoBack", false,
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, VEHICLE_HELP_QUESTION, Map.of(
+                "stepId", "vehicle-help-question",
+                "componentName", "VehicleHelpQuestion",
+                "data", Map.of(
+                    "message", "Can we help you find a vehicle?",
+                    "subMessage", "Click the button below to start searching for a vehicle.",
+                    "showButton", true,
+                    "buttonText", "Yes, help me find a vehicle"
+                ),
+                "stepNumber", 1,
+                "totalSteps", "5",
+                "canGoBack", false,
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, VEHICLE_KNOWLEDGE, Map.of(
+                "stepId", "vehicle-knowledge",
+                "componentName", "VehicleKnowledge",
+                "data", Map.of(
+                    "message", "Do you already know which vehicle you want?",
+                    "options", Map.of(
+                        "knows_vehicle", "Yes, I know what I want",
+                        "needs_help", "No, I need help choosing"
+                    )
+                ),
+                "stepNumber", 2,
+                "totalSteps", "5-8",
+                "canGoBack", true,
+                "previousStep", "intent-selection",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, VEHICLE_SEARCH, Map.of(
+                "stepId", "vehicle-search",
+                "componentName", "VehicleSearch",
+                "data", Map.of(
+                    "message", "Search for your ideal vehicle",
+                    "searchCriteria", Map.of(
+                        "make", "",
+                        "model", "",
+                        "yearRange", "",
+                        "priceRange", ""
+                    )
+                ),
+                "stepNumber", 3,
+                "totalSteps", "5-7",
+                "canGoBack", true,
+                "previousStep", "vehicle-knowledge",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, CARIN_ANALYTICS, Map.of(
+                "stepId", "carin-analytics",
+                "componentName", "CarInAnalytics",
+                "data", Map.of(
+                    "message", "Help us understand your preferences",
+                    "questions", Map.of(
+                        "budget", "What's your budget range?",
+                        "usage", "How will you primarily use the vehicle?",
+                        "features", "Which features are most important to you?"
+                    )
+                ),
+                "stepNumber", 3,
+                "totalSteps", "6-8",
+                "canGoBack", true,
+                "previousStep", "vehicle-knowledge",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, SEARCH_RESULTS, Map.of(
+                "stepId", "search-results",
+                "componentName", "SearchResults",
+                "data", Map.of(
+                    "message", "Here are vehicles matching your criteria",
+                    "results", Map.of("total", 3)
+                ),
+                "stepNumber", 4,
+                "totalSteps", "5-8",
+                "canGoBack", true,
+                "previousStep", "vehicle-search",
+                "status", "SUCCESS"
+        ));
+
+        // PHASE 1 buying flow
+        register(objectMapper, SEARCH_RESULTS_SUMMARY, Map.of(
+                "stepId", "search-results",
+                "componentName", "SearchResults",
+                "data", Map.of(
+                    "message", "Here are vehicles matching your criteria"
+                ),
+                "stepNumber", 3,
+                "totalSteps", "5",
+                "canGoBack", true,
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, VEHICLE_PURCHASE_CONFIRMATION, Map.of(
+                "stepId", "vehicle-purchase-confirmation",
+                "componentName", "VehiclePurchaseConfirmation",
+                "data", Map.of(
+                    "message", "Complete your vehicle purchase request"
+                ),
+                "stepNumber", 4,
+                "totalSteps", "5",
+                "canGoBack", true,
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, HAS_BUYER, Map.of(
+                "stepId", "has-buyer",
+                "componentName", "HasBuyer",
+                "data", Map.of(
+                    "message", "Do you already have a buyer for your vehicle?",
+                    "options", Map.of(
+                        "has_buyer", "Yes, I have a buyer",
+                        "no_buyer", "No, I need help finding a buyer"
+                    )
+                ),
+                "stepNumber", 2,
+                "totalSteps", "4-7",
+                "canGoBack", true,
+                "previousStep", "intent-selection",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, BUYER_TYPE, Map.of(
+                "stepId", "buyer-type",
+                "componentName", "BuyerType",
+                "data", Map.of(
+                    "message", "What type of buyer do you have?",
+                    "options", Map.of(
+                        "private", "Private individual",
+                        "dealer", "Dealer/Trade-in"
+                    )
+                ),
+                "stepNumber", 3,
+                "totalSteps", "5-7",
+                "canGoBack", true,
+                "previousStep", "has-buyer",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, PRIVATE_BUYER, Map.of(
+                "stepId", "private-buyer",
+                "componentName", "PrivateBuyer",
+                "data", Map.of(
+                    "message", "Tell us about your private buyer",
+                    "buyerInfo", Map.of(
+                        "financing", "Do you need help with financing for your buyer?",
+                        "options", Map.of(
+                            "yes", "Yes, I need financing assistance",
+                            "no", "No, financing is handled"
+                        )
+                    )
+                ),
+                "stepNumber", 4,
+                "totalSteps", "5-7",
+                "canGoBack", true,
+                "previousStep", "buyer-type",
+                "status", "SUCCESS"
+        ));
+
+        register(objectMapper, PRIVATE_BUYER_SUMMARY, Map.of(
+                "stepId", "private-buyer",
+                "componentName", "PrivateBuyer",
+                "data", Map.of("message", "Tell us about your private buyer"),
+                "stepNumber", 4,
+                "totalSteps", "5-7",
+                "canGoBack", true,
+                "status", "SUCCESS"
+        ));
+
+        // "data" carries the selected vehicle and is added per request
+        register(objectMapper, BUYING_CONFIRMATION, Map.of(
+                "stepId", "buying-confirmation",
+                "componentName", "BuyingConfirmation",
+                "stepNumber", 5,
+                "totalSteps", "6",
+                "canGoBack", true,
+                "previousStep", "vehicle-selection",
+                "status", "SUCCESS"
+        ));
+    }
+
+    private void register(ObjectMapper objectMapper, String name, Map<String, Object> response) {
+        payloads.put(name, StepPayload.render(name, response, objectMapper));
+    }
+
+    public StepPayload get(String name) {
+        StepPayload payload = payloads.get(name);
+        if (payload == null) {
+            throw new IllegalArgumentException("Unknown step payload: " + name);
+        }
+        return payload;
+    }
+}
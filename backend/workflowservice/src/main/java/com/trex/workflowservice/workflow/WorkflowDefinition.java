@@ -3,6 +3,7 @@ package com.trex.workflowservice.workflow;
 import com.trex.workflowservice.model.WorkflowState;
 import com.trex.workflowservice.model.WorkflowTransitionResponse;
 
+import java.util.List;
 import java.util.Map;
 
 public interface WorkflowDefinition {
@@ -13,6 +14,13 @@ public interface WorkflowDefinition {
     
     WorkflowTransitionResponse getStepConfig(String stepId, Map<String, Object> context);
     
+    /**
+     * Shared data the step needs when shown ({@link StepData} names); empty if none.
+     */
+    default List<String> getStepDependencies(String stepId) {
+        return List.of();
+    }
+    
     WorkflowTransitionResponse processTransition(WorkflowState state, String currentStep, Map<String, Object> formData);
     
     WorkflowTransitionResponse processBack(WorkflowState state, String currentStep);
@@ -13,9 +13,14 @@ public class WorkflowDefinitions {
     private final List<WorkflowDefinition> workflowDefinitions;
     private final Map<String, WorkflowDefinition> workflowMap;
     
-    public WorkflowDefinitions(List<WorkflowDefinition> workflowDefinitions) {
-        this.workflowDefinitions = workflowDefinitions;
-        this.workflowMap = workflowDefinitions.stream()
+    /**
+     * Compiles every declared {@link WorkflowModel}; a malformed model fails startup.
+     */
+    public WorkflowDefinitions(List<WorkflowModel> workflowModels) {
+        this.workflowDefinitions = workflowModels.stream()
+                .<WorkflowDefinition>map(CompiledWorkflow::new)
+                .toList();
+        this.workflowMap = this.workflowDefinitions.stream()
                 .collect(Collectors.toMap(
                     WorkflowDefinition::getWorkflowType,
                     Function.identity()
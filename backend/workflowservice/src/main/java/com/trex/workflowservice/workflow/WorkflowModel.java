@@ -0,0 +1,142 @@
+package com.trex.workflowservice.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Declarative description of a workflow: its steps in display order, the guarded
+ * forward transitions between them, back navigation, the steps that complete it and
+ * the shared data each step needs.
+ *
+ * Models are declared as beans and compiled once at startup by {@link WorkflowDefinitions}
+ * into a {@link CompiledWorkflow}; nothing here is consulted per request.
+ */
+public final class WorkflowModel {
+
+    private final String workflowType;
+    private final List<Step> steps;
+    private final List<Transition> transitions;
+    private final List<Back> backs;
+    private final List<String> completingSteps;
+    private final Map<String, List<String>> prefetches;
+
+    private WorkflowModel(Builder builder) {
+        this.workflowType = builder.workflowType;
+        this.steps = List.copyOf(builder.steps);
+        this.transitions = List.copyOf(builder.transitions);
+        this.backs = List.copyOf(builder.backs);
+        this.completingSteps = List.copyOf(builder.completingSteps);
+        this.prefetches = Map.copyOf(builder.prefetches);
+    }
+
+    public static Builder builder(String workflowType) {
+        return new Builder(workflowType);
+    }
+
+    public String getWorkflowType() {
+        return workflowType;
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    List<Transition> transitions() {
+        return transitions;
+    }
+
+    List<Back> backs() {
+        return backs;
+    }
+
+    List<String> completingSteps() {
+        return completingSteps;
+    }
+
+    Map<String, List<String>> prefetches() {
+        return prefetches;
+    }
+
+    /**
+     * A step; if staticData is set, the step always shows that data instead of the
+     * session's.
+     */
+    record Step(String id, String componentName, Map<String, Object> staticData) {
+    }
+
+    /**
+     * Forward move taken when the submitted form data passes the guard. Transitions out
+     * of a step are tried in declaration order.
+     */
+    record Transition(String from, String to, Predicate<Map<String, Object>> guard) {
+    }
+
+    record Back(String from, String to) {
+    }
+
+    public static final class Builder {
+
+        private final String workflowType;
+        private final List<Step> steps = new ArrayList<>();
+        private final List<Transition> transitions = new ArrayList<>();
+        private final List<Back> backs = new ArrayList<>();
+        private final List<String> completingSteps = new ArrayList<>();
+        private final Map<String, List<String>> prefetches = new LinkedHashMap<>();
+
+        private Builder(String workflowType) {
+            this.workflowType = workflowType;
+        }
+
+        /**
+         * Adds a step; the first one added is where new sessions start.
+         */
+        public Builder step(String id, String componentName) {
+            steps.add(new Step(id, componentName, null));
+            return this;
+        }
+
+        public Builder step(String id, String componentName, Map<String, Object> staticData) {
+            steps.add(new Step(id, componentName, Collections.unmodifiableMap(staticData)));
+            return this;
+        }
+
+        public Builder transition(String from, String to) {
+            return transition(from, to, null);
+        }
+
+        public Builder transition(String from, String to, Predicate<Map<String, Object>> guard) {
+            transitions.add(new Transition(from, to, guard));
+            return this;
+        }
+
+        public Builder back(String from, String to) {
+            backs.add(new Back(from, to));
+            return this;
+        }
+
+        /**
+         * Marks sessions completed when they reach the step.
+         */
+        public Builder completesOn(String stepId) {
+            completingSteps.add(stepId);
+            return this;
+        }
+
+        /**
+         * Declares the shared data (see {@link StepData}) the step loads as soon as it is
+         * shown; it is resolved with the response that leads to the step.
+         */
+        public Builder prefetch(String stepId, String... data) {
+            prefetches.put(stepId, List.of(data));
+            return this;
+        }
+
+        public WorkflowModel build() {
+            return new WorkflowModel(this);
+        }
+    }
+}
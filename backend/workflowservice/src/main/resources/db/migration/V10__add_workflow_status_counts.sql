@@ -0,0 +1,23 @@
+-- Migration: V10__add_workflow_status_counts
+-- Purpose: Maintained number of workflow sessions per workflow type and status, so
+--          dashboards and health checks don't count workflow_states
+-- Date: October 19, 2026
+--
+-- The application adds batched deltas as sessions change status; the stale session
+-- reaper and partition retention adjust it in the statements that change the sessions.
+
+CREATE TABLE IF NOT EXISTS workflow_status_counts (
+    workflow_type VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (workflow_type, status)
+);
+
+-- Seeded from the sessions present when the migration runs
+INSERT INTO workflow_status_counts (workflow_type, status, count)
+SELECT workflow_type, status, count(*)
+FROM workflow_states
+WHERE status IS NOT NULL
+GROUP BY workflow_type, status
+ON CONFLICT (workflow_type, status) DO UPDATE SET count = EXCLUDED.count;
@@ -0,0 +1,20 @@
+-- Migration: V11__add_workflow_event_dead_letters
+-- Purpose: Workflow events the write-behind session store could not write (duplicate
+--          sequence, value too long), kept for inspection instead of blocking later writes
+-- Date: October 19, 2026
+
+-- No constraints beyond the key, so anything workflow_events rejected still fits
+CREATE TABLE IF NOT EXISTS workflow_event_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    session_id TEXT NOT NULL,
+    sequence BIGINT NOT NULL,
+    type TEXT,
+    step TEXT,
+    form_data TEXT,
+    idempotency_key TEXT,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_workflow_event_dead_letters_session
+    ON workflow_event_dead_letters(session_id);
@@ -1,4 +1,4 @@
--- Migration: V202510XX_add_contact_request_tables
+-- Migration: V1__add_contact_request_tables
 -- Purpose: Create contact_requests and contact_request_vehicles tables with anonymity tracking
 -- Date: October 31, 2025
 
@@ -0,0 +1,25 @@
+-- Migration: V2__add_saved_search_tables
+-- Purpose: Store buyers' saved searches for new-inventory notifications
+-- Date: October 19, 2026
+
+CREATE TABLE IF NOT EXISTS saved_searches (
+    id BIGSERIAL PRIMARY KEY,
+    email VARCHAR(254) NOT NULL,
+    make VARCHAR(100),
+    model VARCHAR(100),
+    province VARCHAR(50),
+    city VARCHAR(100),
+    min_year INTEGER,
+    max_year INTEGER,
+    min_price NUMERIC(12, 2),
+    max_price NUMERIC(12, 2),
+    max_mileage INTEGER,
+    fuel_type VARCHAR(20),
+    body_type VARCHAR(50),
+    transmission VARCHAR(20),
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Lookup of a buyer's searches; matching itself happens in the in-memory reverse index
+CREATE INDEX IF NOT EXISTS idx_saved_searches_email ON saved_searches(LOWER(email)) WHERE active;
@@ -0,0 +1,34 @@
+-- Migration: V3__add_hot_filter_combinations_table
+-- Purpose: Persist the most requested filter combinations for startup cache warm-up,
+--          one row per combination with hits added up over all instances
+-- Date: October 19, 2026
+
+CREATE TABLE IF NOT EXISTS hot_filter_combinations (
+    id BIGSERIAL PRIMARY KEY,
+    kind VARCHAR(30) NOT NULL,
+    params TEXT NOT NULL,
+    hits BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- One row per (kind, params); every instance adds its hits to the shared row. Hibernate
+-- may have created the table already, so merge any duplicates before adding the key
+WITH merged AS (
+    SELECT MIN(id) AS keep_id, kind, md5(params) AS params_md5, SUM(hits) AS hits, MAX(updated_at) AS updated_at
+    FROM hot_filter_combinations
+    GROUP BY kind, md5(params)
+    HAVING COUNT(*) > 1
+),
+updated AS (
+    UPDATE hot_filter_combinations h
+    SET hits = merged.hits, updated_at = merged.updated_at
+    FROM merged
+    WHERE h.id = merged.keep_id
+)
+DELETE FROM hot_filter_combinations h
+USING merged
+WHERE h.kind = merged.kind AND md5(h.params) = merged.params_md5 AND h.id <> merged.keep_id;
+
+-- params can be long, so the key uses its hash (HotFilterRecorder upserts on it)
+CREATE UNIQUE INDEX IF NOT EXISTS idx_hot_filter_combinations_key
+    ON hot_filter_combinations (kind, md5(params));
@@ -0,0 +1,12 @@
+-- Migration: V4__add_workflow_state_data_columns
+-- Purpose: Persist workflow session data (user data, context, navigation history) as JSONB
+-- Date: October 19, 2026
+
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS user_data JSONB;
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS context JSONB;
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS navigation_history JSONB;
+
+-- Sessions saved before this migration lost their data; start them from empty sections
+UPDATE workflow_states SET user_data = '{}'::jsonb WHERE user_data IS NULL;
+UPDATE workflow_states SET context = '{}'::jsonb WHERE context IS NULL;
+UPDATE workflow_states SET navigation_history = '{}'::jsonb WHERE navigation_history IS NULL;
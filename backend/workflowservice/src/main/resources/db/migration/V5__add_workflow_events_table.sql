@@ -0,0 +1,24 @@
+-- Migration: V5__add_workflow_events_table
+-- Purpose: Append-only log of workflow steps; workflow_states rows become periodic snapshots
+-- Date: October 19, 2026
+
+-- Ids are allocated 50 at a time by the application (must match allocationSize)
+CREATE SEQUENCE IF NOT EXISTS workflow_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS workflow_events (
+    id BIGINT PRIMARY KEY,
+    session_id VARCHAR(255) NOT NULL,
+    sequence BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    step VARCHAR(255) NOT NULL,
+    form_data JSONB,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Replaying a session reads its events after the snapshot's sequence, in order
+CREATE UNIQUE INDEX IF NOT EXISTS idx_workflow_events_session_sequence
+    ON workflow_events(session_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_workflow_events_created_at ON workflow_events(created_at);
+
+-- Existing rows already hold their full state
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS event_sequence BIGINT NOT NULL DEFAULT 0;
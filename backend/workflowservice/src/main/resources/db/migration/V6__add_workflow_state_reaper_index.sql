@@ -0,0 +1,6 @@
+-- Migration: V6__add_workflow_state_reaper_index
+-- Purpose: Let the stale workflow reaper find idle and expired sessions without a table scan
+-- Date: October 19, 2026
+
+CREATE INDEX IF NOT EXISTS idx_workflow_states_status_updated_at
+    ON workflow_states(status, updated_at);
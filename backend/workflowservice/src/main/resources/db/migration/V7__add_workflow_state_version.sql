@@ -0,0 +1,9 @@
+-- Migration: V7__add_workflow_state_version
+-- Purpose: Optimistic locking of workflow session snapshots and idempotent transitions
+-- Date: October 19, 2026
+
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE workflow_states ADD COLUMN IF NOT EXISTS last_idempotency_key VARCHAR(100);
+
+-- Client-supplied key of the transition that produced the event
+ALTER TABLE workflow_events ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(100);
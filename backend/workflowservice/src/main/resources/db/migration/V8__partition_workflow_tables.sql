@@ -0,0 +1,112 @@
+-- Migration: V8__partition_workflow_tables
+-- Purpose: Range-partition workflow_states and workflow_events by created_at (one partition
+--          per day) so lookups prune to recent partitions and retention is a partition drop
+-- Date: October 19, 2026
+--
+-- Existing rows move into a single "legacy" partition covering everything before today;
+-- it is dropped like any other partition once its upper bound passes the retention
+-- period. Daily partitions from today on are created here for the next few days and
+-- afterwards by the application (workflow.partitioning.enabled, on by default).
+--
+-- A unique constraint on a partitioned table must include the partition key, so
+-- session_id is unique per (session_id, created_at). The application looks sessions up
+-- before creating them.
+
+-- ---------------------------------------------------------------------------
+-- workflow_states
+-- ---------------------------------------------------------------------------
+ALTER TABLE workflow_states RENAME TO workflow_states_unpartitioned;
+
+CREATE SEQUENCE IF NOT EXISTS workflow_states_partitioned_id_seq;
+SELECT setval('workflow_states_partitioned_id_seq',
+              COALESCE((SELECT max(id) FROM workflow_states_unpartitioned), 0) + 1, false);
+
+CREATE TABLE workflow_states (
+    id BIGINT NOT NULL DEFAULT nextval('workflow_states_partitioned_id_seq'),
+    session_id VARCHAR(255) NOT NULL,
+    workflow_type VARCHAR(255) NOT NULL,
+    current_step VARCHAR(255) NOT NULL,
+    user_data JSONB,
+    context JSONB,
+    navigation_history JSONB,
+    status VARCHAR(255),
+    event_sequence BIGINT NOT NULL DEFAULT 0,
+    last_idempotency_key VARCHAR(100),
+    version BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (session_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE workflow_states_partitioned_id_seq OWNED BY workflow_states.id;
+
+CREATE INDEX idx_workflow_states_status_updated_at_p ON workflow_states(status, updated_at);
+
+-- ---------------------------------------------------------------------------
+-- workflow_events
+-- ---------------------------------------------------------------------------
+ALTER TABLE workflow_events RENAME TO workflow_events_unpartitioned;
+
+CREATE TABLE workflow_events (
+    id BIGINT NOT NULL,
+    session_id VARCHAR(255) NOT NULL,
+    sequence BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    step VARCHAR(255) NOT NULL,
+    form_data JSONB,
+    idempotency_key VARCHAR(100),
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- A unique index on the parent would have to include created_at, the event's own
+-- timestamp, and would reject nothing. Each partition gets a unique (session_id, sequence)
+-- index instead (below, and in WorkflowStatePartitions for later partitions); two writers
+-- racing on the same session would have to straddle midnight to slip past it.
+
+-- ---------------------------------------------------------------------------
+-- Partitions: legacy (everything before today), today and the next 3 days, default
+-- ---------------------------------------------------------------------------
+DO $$
+DECLARE
+    parent TEXT;
+    day DATE;
+    partition TEXT;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['workflow_states', 'workflow_events'] LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (MINVALUE) TO (%L)',
+                       parent || '_legacy', parent, current_date);
+        FOR i IN 0..3 LOOP
+            day := current_date + i;
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_p' || to_char(day, 'YYYYMMDD'), parent, day, day + 1);
+        END LOOP;
+        -- Catches rows outside the created partitions (e.g. if maintenance falls behind);
+        -- WorkflowStatePartitions moves them out when it creates their day's partition
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', parent || '_default', parent);
+    END LOOP;
+
+    FOR partition IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'workflow_events'::regclass
+    LOOP
+        EXECUTE format('CREATE UNIQUE INDEX %I ON %I (session_id, sequence)',
+                       partition || '_session_sequence', partition);
+    END LOOP;
+END $$;
+
+INSERT INTO workflow_states (id, session_id, workflow_type, current_step, user_data, context,
+                             navigation_history, status, event_sequence, last_idempotency_key,
+                             version, created_at, updated_at)
+SELECT id, session_id, workflow_type, current_step, user_data, context,
+       navigation_history, status, event_sequence, last_idempotency_key,
+       version, COALESCE(created_at, CURRENT_TIMESTAMP), updated_at
+FROM workflow_states_unpartitioned;
+
+INSERT INTO workflow_events (id, session_id, sequence, type, step, form_data, idempotency_key, created_at)
+SELECT id, session_id, sequence, type, step, form_data, idempotency_key, created_at
+FROM workflow_events_unpartitioned;
+
+DROP TABLE workflow_states_unpartitioned;
+DROP TABLE workflow_events_unpartitioned;
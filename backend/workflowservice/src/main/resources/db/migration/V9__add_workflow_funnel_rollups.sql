@@ -0,0 +1,16 @@
+-- Migration: V9__add_workflow_funnel_rollups
+-- Purpose: Hourly workflow funnel counts (steps left per workflow type and outcome) for
+--          historical funnel views without scanning workflow_states
+-- Date: October 19, 2026
+--
+-- Each instance adds its counts since its last flush to the current hour's row, so a
+-- row holds the total over all instances.
+
+CREATE TABLE IF NOT EXISTS workflow_funnel_rollups (
+    bucket_start TIMESTAMP NOT NULL,
+    workflow_type VARCHAR(255) NOT NULL,
+    step VARCHAR(255) NOT NULL,
+    outcome VARCHAR(30) NOT NULL,
+    count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, workflow_type, step, outcome)
+);
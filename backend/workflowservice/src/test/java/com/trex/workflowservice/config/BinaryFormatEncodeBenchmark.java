@@ -0,0 +1,126 @@
+package com.trex.workflowservice.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.trex.workflowservice.model.Vehicle;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode time and size of a 50-row search page in JSON, Smile and CBOR, with the same
+ * mapper settings as the API (see {@link BinaryFormatConfig} and application.yml).
+ *
+ * Not a unit test; run it with test-binary-formats-encode.sh from the repository root.
+ * The page is synthetic but shaped like the seed inventory: a handful of makes,
+ * provinces and body types repeated across rows, short dealer comments.
+ */
+public class BinaryFormatEncodeBenchmark {
+
+    private static final int ROWS = 50;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 15;
+    private static final int ENCODES_PER_ROUND = 2_000;
+
+    private static final String[] MAKES = {"Toyota", "Volkswagen", "Ford", "BMW", "Hyundai", "Nissan"};
+    private static final String[] MODELS = {"Corolla", "Polo", "Ranger", "3 Series", "Tucson", "Navara"};
+    private static final String[] PROVINCES = {"Gauteng", "Western Cape", "KwaZulu-Natal", "Eastern Cape"};
+    private static final String[] CITIES = {"Johannesburg", "Cape Town", "Durban", "Gqeberha"};
+    private static final String[] BODY_TYPES = {"Sedan", "Hatchback", "SUV", "Double Cab"};
+
+    public static void main(String[] args) throws IOException {
+        PageImpl<Vehicle> page = new PageImpl<>(vehicles(), PageRequest.of(0, ROWS), 420);
+        String[] formats = {"json", "smile", "cbor"};
+        ObjectMapper[] mappers = {mapper(null), mapper(BinaryFormatConfig.smileFactory()), mapper(new CBORFactory())};
+
+        // Formats take turns in every round, so JIT and machine noise affect them alike
+        double[][] micros = new double[formats.length][ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            for (int f = 0; f < formats.length; f++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < ENCODES_PER_ROUND; i++) {
+                    mappers[f].writeValueAsBytes(page);
+                }
+                if (round >= 0) {
+                    micros[f][round] = (System.nanoTime() - start) / 1000.0 / ENCODES_PER_ROUND;
+                }
+            }
+        }
+
+        System.out.printf("%-8s %10s %12s %12s %12s%n", "Format", "Bytes", "Gzip bytes", "Median us", "Min us");
+        for (int f = 0; f < formats.length; f++) {
+            byte[] encoded = mappers[f].writeValueAsBytes(page);
+            Arrays.sort(micros[f]);
+            System.out.printf("%-8s %10d %12d %12.1f %12.1f%n", formats[f], encoded.length,
+                gzip(encoded).length, micros[f][ROUNDS / 2], micros[f][0]);
+        }
+    }
+
+    // As configured by spring.jackson in application.yml
+    private static ObjectMapper mapper(JsonFactory factory) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (factory != null) {
+            builder.factory(factory);
+        }
+        return builder.build();
+    }
+
+    private static List<Vehicle> vehicles() {
+        Random random = new Random(42);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            int make = random.nextInt(MAKES.length);
+            int place = random.nextInt(PROVINCES.length);
+            Vehicle vehicle = new Vehicle(MAKES[make], MODELS[make], 2012 + random.nextInt(12));
+            vehicle.setId(1000L + i);
+            vehicle.setUsedVehicleStockId(500_000L + random.nextInt(100_000));
+            vehicle.setVariantName(MODELS[make] + " 1.4 TSI Comfortline");
+            vehicle.setVin("WVWZZZ" + (10_000_000_000L + random.nextInt(1_000_000_000)));
+            vehicle.setRegistration("CA " + (100_000 + random.nextInt(900_000)));
+            vehicle.setMmCode(String.valueOf(60_000_000 + random.nextInt(1_000_000)));
+            vehicle.setMileage(5_000 + random.nextInt(200_000));
+            vehicle.setColour(random.nextBoolean() ? "White" : "Silver");
+            vehicle.setProvinceName(PROVINCES[place]);
+            vehicle.setCityName(CITIES[place]);
+            vehicle.setStockCode("STK" + (10_000 + i));
+            vehicle.setLoadDate(LocalDate.of(2026, 9, 1).plusDays(random.nextInt(40)));
+            vehicle.setLastChangedDate(LocalDate.of(2026, 10, 1).plusDays(random.nextInt(18)));
+            vehicle.setPrice(BigDecimal.valueOf(120_000 + random.nextInt(600_000)));
+            vehicle.setFirstPrice(vehicle.getPrice().add(BigDecimal.valueOf(10_000)));
+            vehicle.setFranchise(MAKES[make] + " " + CITIES[place]);
+            vehicle.setComments("Full service history, one owner, spare key available.");
+            vehicle.setBodyType(BODY_TYPES[random.nextInt(BODY_TYPES.length)]);
+            vehicle.setTransmission(random.nextBoolean() ? "Manual" : "Automatic");
+            vehicle.setFuelType(random.nextInt(4) == 0 ? "Diesel" : "Petrol");
+            vehicle.setEngineSize("1.4");
+            vehicle.setCreatedAt(LocalDateTime.of(2026, 9, 1, 8, 0).plusMinutes(random.nextInt(60_000)));
+            vehicle.setUpdatedAt(vehicle.getCreatedAt().plusDays(3));
+            vehicles.add(vehicle);
+        }
+        return vehicles;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,156 @@
+package com.trex.workflowservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trex.workflowservice.model.WorkflowState;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkflowTokenCodecTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String OTHER_SECRET = "fedcba9876543210fedcba9876543210";
+    private static final int MAX_PAYLOAD_BYTES = 16384;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void decodesWhatItEncoded() {
+        WorkflowTokenCodec codec = codec(SECRET, "");
+        WorkflowState state = session();
+
+        WorkflowState decoded = codec.decode(codec.encode(state).orElseThrow());
+
+        assertThat(decoded.getSessionId()).isEqualTo(state.getSessionId());
+        assertThat(decoded.getWorkflowType()).isEqualTo("buying");
+        assertThat(decoded.getCurrentStep()).isEqualTo("vehicle-search");
+        assertThat(decoded.getStatus()).isEqualTo(WorkflowState.WorkflowStatus.IN_PROGRESS);
+        assertThat(decoded.getUserData()).isEqualTo(state.getUserData());
+        assertThat(decoded.getCreatedAt()).isEqualTo(state.getCreatedAt());
+    }
+
+    @Test
+    void acceptsTokensSignedWithThePreviousSecret() {
+        String token = codec(OTHER_SECRET, "").encode(session()).orElseThrow();
+
+        assertThat(codec(SECRET, OTHER_SECRET).decode(token).getCurrentStep()).isEqualTo("vehicle-search");
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        WorkflowTokenCodec codec = codec(SECRET, "");
+        String token = codec.encode(session()).orElseThrow();
+        int dot = token.indexOf('.');
+        char flipped = token.charAt(0) == 'A' ? 'B' : 'A';
+
+        assertThatThrownBy(() -> codec.decode(flipped + token.substring(1)))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class)
+                .hasMessageContaining("signature");
+        assertThatThrownBy(() -> codec.decode(token.substring(0, dot + 1) + "AAAA"))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class);
+        assertThatThrownBy(() -> codec(OTHER_SECRET, "").decode(token))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class);
+        assertThatThrownBy(() -> codec.decode("no-signature"))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokens() throws Exception {
+        WorkflowTokenCodec codec = codec(SECRET, "");
+        Map<String, Object> payload = payload(Instant.now().minus(Duration.ofDays(1)).minusSeconds(60));
+
+        assertThatThrownBy(() -> codec.decode(signedToken(objectMapper.writeValueAsBytes(payload))))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void rejectsPayloadsThatInflatePastTheLimit() throws Exception {
+        WorkflowTokenCodec codec = codec(SECRET, "");
+        // A signed token a few KB long that would inflate to 10 MB
+        byte[] bomb = new byte[10 * 1024 * 1024];
+        Arrays.fill(bomb, (byte) ' ');
+        String token = signedToken(bomb);
+        assertThat(token.length()).isLessThan(MAX_PAYLOAD_BYTES);
+
+        assertThatThrownBy(() -> codec.decode(token))
+                .isInstanceOf(WorkflowTokenCodec.InvalidTokenException.class)
+                .hasMessageContaining("Malformed");
+    }
+
+    @Test
+    void refusesToStartWithoutAUsableSecret() {
+        assertThatThrownBy(() -> codec("", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec("too-short", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec(SECRET, "too-short"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        WorkflowTokenCodec random = new WorkflowTokenCodec(objectMapper, "", "", Duration.ofDays(1), MAX_PAYLOAD_BYTES, true);
+        assertThat(random.decode(random.encode(session()).orElseThrow()).getSessionId()).isEqualTo("session-1");
+    }
+
+    private WorkflowTokenCodec codec(String secret, String previousSecret) {
+        return new WorkflowTokenCodec(objectMapper, secret, previousSecret, Duration.ofDays(1), MAX_PAYLOAD_BYTES, false);
+    }
+
+    private static WorkflowState session() {
+        WorkflowState state = new WorkflowState();
+        state.setSessionId("session-1");
+        state.setWorkflowType("buying");
+        state.setCurrentStep("vehicle-search");
+        Map<String, Object> userData = new HashMap<>();
+        userData.put("intent", "buying");
+        userData.put("budget", 250000);
+        state.setUserData(userData);
+        state.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        return state;
+    }
+
+    private static Map<String, Object> payload(Instant issuedAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("i", "session-1");
+        payload.put("t", "buying");
+        payload.put("s", "vehicle-search");
+        payload.put("st", "IN_PROGRESS");
+        payload.put("u", Map.of());
+        payload.put("c", issuedAt.getEpochSecond());
+        payload.put("iat", issuedAt.getEpochSecond());
+        return payload;
+    }
+
+    // Builds a token the way the codec does, around an arbitrary payload
+    private static String signedToken(byte[] payload) throws Exception {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            deflated.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String body = encoder.encodeToString(deflated.toByteArray());
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return body + "." + encoder.encodeToString(mac.doFinal(body.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -134,7 +134,7 @@ case $choice in
         # Start backend in background
         echo "🔧 Starting backend service..."
         cd backend/workflowservice
-        ./mvnw spring-boot:run &
+        ./mvnw spring-boot:run -Dspring-boot.run.profiles=dev &
         BACKEND_PID=$!
         cd ../..
         
@@ -178,7 +178,7 @@ case $choice in
     5)
         echo "🔧 Starting backend only..."
         cd backend/workflowservice
-        ./mvnw spring-boot:run
+        ./mvnw spring-boot:run -Dspring-boot.run.profiles=dev
         ;;
     6)
         echo "🎨 Starting frontend only..."
@@ -55,7 +55,7 @@ fi
 # Start backend
 echo "🔧 Starting backend service..."
 cd backend/workflowservice
-./mvnw spring-boot:run &
+./mvnw spring-boot:run -Dspring-boot.run.profiles=dev &
 BACKEND_PID=$!
 cd ../..
 
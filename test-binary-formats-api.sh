@@ -0,0 +1,41 @@
+#!/bin/bash
+
+# Benchmark for binary content negotiation on /api/vehicles/search
+# Compares payload size and response time of JSON, Smile and CBOR for a 50-row page
+# Run this after starting the backend server
+
+BASE_URL="${BASE_URL:-http://localhost:8080/api/vehicles}"
+URL="$BASE_URL/search?size=50&page=0"
+RUNS="${RUNS:-200}"
+
+echo "========================================="
+echo "Binary Formats Benchmark (50-row search page)"
+echo "GET $URL"
+echo "Runs per format: $RUNS"
+echo "========================================="
+echo ""
+
+printf "%-28s %12s %12s %12s\n" "Accept" "Bytes" "Gzip bytes" "Avg ms"
+
+for ACCEPT in "application/json" "application/x-jackson-smile" "application/cbor"; do
+    # Warm up caches and the JIT for this format
+    for i in $(seq 1 20); do
+        curl -s -o /dev/null -H "Accept: $ACCEPT" "$URL"
+    done
+
+    SIZE=$(curl -s -H "Accept: $ACCEPT" "$URL" | wc -c)
+    GZIP_SIZE=$(curl -s -H "Accept: $ACCEPT" -H "Accept-Encoding: gzip" --raw "$URL" | wc -c)
+
+    TOTAL=0
+    for i in $(seq 1 "$RUNS"); do
+        TIME=$(curl -s -o /dev/null -H "Accept: $ACCEPT" -w "%{time_total}" "$URL")
+        TOTAL=$(echo "$TOTAL + $TIME" | bc -l)
+    done
+    AVG_MS=$(echo "scale=2; $TOTAL * 1000 / $RUNS" | bc -l)
+
+    printf "%-28s %12s %12s %12s\n" "$ACCEPT" "$SIZE" "$GZIP_SIZE" "$AVG_MS"
+done
+
+echo ""
+echo "Gzip bytes only differ from Bytes when server.compression is enabled."
+echo "========================================="
@@ -0,0 +1,22 @@
+#!/bin/bash
+
+# In-process encode benchmark for the binary response formats
+# Encodes a 50-row search page with the API's JSON, Smile and CBOR mappers and
+# reports size, gzipped size and median encode time. Needs no running server.
+# See test-binary-formats-api.sh for the same comparison over HTTP.
+
+set -e
+
+cd "$(dirname "$0")/backend/workflowservice"
+
+echo "========================================="
+echo "Binary Formats Encode Benchmark (50-row search page)"
+echo "========================================="
+echo ""
+
+./mvnw -q -B test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+java -cp "target/test-classes:target/classes:$(cat target/benchmark.classpath)" \
+    com.trex.workflowservice.config.BinaryFormatEncodeBenchmark
+
+echo ""
+echo "========================================="